@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// the array type against the linked instance workaround scripts used before
+// it: build a sequence of n numbers, then read it back by position.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ArrayBenchmark [n]
+public class ArrayBenchmark {
+
+    public static void main(String[] args){
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        List<Stmt> array = prepare(
+                "var a = array();\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { a.push(i); }\n" +
+                "var sum = 0;\n" +
+                "for (var i = 0; i < a.length(); i = i + 1) { sum = sum + a.get(i); }\n");
+
+        // a chain of nodes walked from the head, what scripts did without arrays.
+        List<Stmt> chain = prepare(
+                "class Node { init(value, next) { this.value = value; this.next = next; } }\n" +
+                "var head = nil;\n" +
+                "for (var i = " + n + " - 1; i > -1; i = i - 1) { head = Node(i, head); }\n" +
+                "var sum = 0;\n" +
+                "var node = head;\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { sum = sum + node.value; node = node.next; }\n");
+
+        for(int round = 0; round < 5; round++){
+            System.out.printf("n = %d: array %7.1f ms   instance chain %7.1f ms%n",
+                    n, time(array), time(chain));
+        }
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
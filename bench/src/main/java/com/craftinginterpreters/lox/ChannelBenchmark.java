@@ -0,0 +1,53 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// producer/consumer throughput through Lox channels. each pair is a spawned
+// producer and a spawned consumer on a channel(64). run it once per core
+// count by limiting what the JVM sees:
+//
+//   mvn -q package
+//   for n in 1 2 4 8 16; do
+//     java -XX:ActiveProcessorCount=$n -Djdk.virtualThreadScheduler.parallelism=$n \
+//          -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ChannelBenchmark
+//   done
+public class ChannelBenchmark {
+
+    private static final int MESSAGES = 200_000;
+
+    public static void main(String[] args){
+        System.out.printf("cores available: %d%n", Runtime.getRuntime().availableProcessors());
+
+        for(int pairs = 1; pairs <= 16; pairs *= 2){
+            String source = program(pairs, MESSAGES / pairs);
+            List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+            new Resolver().resolve(statements);
+
+            // first run warms up the interpreter, the second is timed.
+            new Interpreter().interpret(statements);
+            long start = System.nanoTime();
+            new Interpreter().interpret(statements);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%2d pairs: %,10.0f messages/s%n", pairs, MESSAGES / seconds);
+        }
+    }
+
+    static String program(int pairs, int messages){
+        return  "func pair(count) {\n" +
+                "  var ch = channel(64);\n" +
+                "  func produce() { for (var i = 0; i < count; i = i + 1) { send(ch, i); } }\n" +
+                "  func consume() {\n" +
+                "    var sum = 0;\n" +
+                "    for (var i = 0; i < count; i = i + 1) { sum = sum + receive(ch); }\n" +
+                "    return sum;\n" +
+                "  }\n" +
+                "  spawn(produce);\n" +
+                "  return spawn(consume);\n" +
+                "}\n" +
+                "var consumers = channel(" + pairs + ");\n" +
+                "for (var p = 0; p < " + pairs + "; p = p + 1) { send(consumers, pair(" + messages + ")); }\n" +
+                "var total = 0;\n" +
+                "for (var p = 0; p < " + pairs + "; p = p + 1) { total = total + join(receive(consumers)); }\n";
+    }
+}
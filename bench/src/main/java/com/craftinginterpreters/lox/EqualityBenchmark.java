@@ -0,0 +1,58 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// a script dispatching on category keys with a chain of == tests, the shape
+// of a report grouped by category. the keys come either from literals,
+// interned by the scanner so each test is an identity check, or are built at
+// run time with +, so a test compares characters; the keys share a long
+// prefix so such a test goes through most of the key.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.EqualityBenchmark [iterations]
+public class EqualityBenchmark {
+
+    private static final String DISPATCH =
+            "func dispatch(key) {\n" +
+            "  if (key == \"sales/region/europe/quarterly/push\") { return 1; }\n" +
+            "  if (key == \"sales/region/europe/quarterly/pop\") { return 2; }\n" +
+            "  if (key == \"sales/region/europe/quarterly/add\") { return 3; }\n" +
+            "  if (key == \"sales/region/europe/quarterly/print\") { return 4; }\n" +
+            "  return 0;\n" +
+            "}\n";
+
+    public static void main(String[] args){
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        List<Stmt> literals = prepare(DISPATCH +
+                "var a = \"sales/region/europe/quarterly/push\"; var b = \"sales/region/europe/quarterly/pop\"; var c = \"sales/region/europe/quarterly/add\"; var d = \"sales/region/europe/quarterly/print\";\n" +
+                loop(iterations));
+        List<Stmt> built = prepare(DISPATCH +
+                "var a = \"sales/region/europe/quarterly/pu\" + \"sh\"; var b = \"sales/region/europe/quarterly/po\" + \"p\"; var c = \"sales/region/europe/quarterly/ad\" + \"d\"; var d = \"sales/region/europe/quarterly/pri\" + \"nt\";\n" +
+                loop(iterations));
+
+        for(int round = 0; round < 5; round++){
+            System.out.printf("interned literals %7.1f ms   strings built by + %7.1f ms%n",
+                    time(literals), time(built));
+        }
+    }
+
+    private static String loop(int iterations){
+        return "var sum = 0;\n" +
+               "for (var i = 0; i < " + iterations + "; i = i + 1) {\n" +
+               "  sum = sum + dispatch(a) + dispatch(b) + dispatch(c) + dispatch(d);\n" +
+               "}\n";
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
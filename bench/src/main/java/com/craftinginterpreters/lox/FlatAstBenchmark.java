@@ -0,0 +1,78 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// compares the object AST with the FlatAst on a large generated program:
+// retained heap of each representation and the time to execute it.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.FlatAstBenchmark [functions]
+public class FlatAstBenchmark {
+
+    public static void main(String[] args){
+        int functions = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        String source = generate(functions);
+
+        long before = usedHeap();
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        long objectBytes = usedHeap() - before;
+
+        // the flat program carries its own scope depths, drop the objects to
+        // measure what it retains on its own.
+        FlatAst ast = new Flattener().flatten(statements);
+        statements = null;
+        long flatBytes = usedHeap() - before;
+
+        System.out.printf("program:     %d functions, %d flat nodes, %d tokens%n",
+                functions, ast.nodeCount / FlatAst.NODE_SIZE, ast.tokenCount);
+        System.out.printf("object AST:  %,d bytes (with resolved depths)%n", objectBytes);
+        System.out.printf("flat AST:    %,d bytes%n", flatBytes);
+
+        List<Stmt> program = new Parser(new Scanner(source).scanTokens()).parse();
+        Interpreter objects = new Interpreter();
+        new Resolver().resolve(program);
+        FlatInterpreter flat = new FlatInterpreter();
+
+        for(int i = 0; i < 5; i++){
+            long objectTime = time(() -> objects.interpret(program));
+            long flatTime = time(() -> flat.interpret(ast));
+            System.out.printf("run %d: object %6.1f ms   flat %6.1f ms%n",
+                    i, objectTime / 1e6, flatTime / 1e6);
+        }
+    }
+
+    // every function loops, branches and calls so all the common node kinds show up.
+    static String generate(int functions){
+        StringBuilder source = new StringBuilder();
+        for(int i = 0; i < functions; i++){
+            source.append("func f").append(i).append("(n) {\n")
+                  .append("  var s = 0;\n")
+                  .append("  for (var j = 0; j < n; j = j + 1) {\n")
+                  .append("    s = s + j * 2 - ").append(i % 7).append(";\n")
+                  .append("  }\n")
+                  .append("  if (s > 0 and n > 1) { return s; } else { return -s; }\n")
+                  .append("}\n");
+        }
+        source.append("var total = 0;\n");
+        for(int i = 0; i < functions; i++){
+            source.append("total = total + f").append(i).append("(10);\n");
+        }
+        source.append("print total;\n");
+        return source.toString();
+    }
+
+    private static long time(Runnable run){
+        long start = System.nanoTime();
+        run.run();
+        return System.nanoTime() - start;
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 4; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
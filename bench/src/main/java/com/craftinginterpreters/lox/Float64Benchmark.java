@@ -0,0 +1,53 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// float64 buffer bulk operations against the same math written as element by
+// element Lox loops over arrays: y = y + x * 2, then the dot product x . y.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.Float64Benchmark [n]
+public class Float64Benchmark {
+
+    public static void main(String[] args){
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        List<Stmt> loops = prepare(
+                "var x = array();\n" +
+                "var y = array();\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { x.push(i); y.push(1); }\n" +
+                "var start = clock();\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { y.set(i, y.get(i) + x.get(i) * 2); }\n" +
+                "var dot = 0;\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { dot = dot + x.get(i) * y.get(i); }\n" +
+                "print clock() - start;\n");
+
+        List<Stmt> bulk = prepare(
+                "var x = float64(" + n + ");\n" +
+                "var y = float64(" + n + ");\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { x.set(i, i); }\n" +
+                "y.fill(1);\n" +
+                "var t = float64(" + n + ");\n" +
+                "var start = clock();\n" +
+                "t.copy(x);\n" +
+                "t.scale(2);\n" +
+                "y.add(t);\n" +
+                "var dot = x.dot(y);\n" +
+                "print clock() - start;\n");
+
+        // each program prints the seconds spent on the math itself, the set
+        // up of the inputs is not counted.
+        for(int round = 0; round < 5; round++){
+            System.out.print("lox loops (s):    ");
+            new Interpreter().interpret(loops);
+            System.out.print("buffer bulk (s):  ");
+            new Interpreter().interpret(bulk);
+        }
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
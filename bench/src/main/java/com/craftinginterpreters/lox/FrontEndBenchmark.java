@@ -0,0 +1,63 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// each stage of the front end on its own, over the workload scripts: the
+// scanner on the source text, the parser on the scanned tokens and the
+// resolver on the parsed statements.
+//
+//   mvn -q package
+//   java -jar bench/target/benchmarks.jar FrontEndBenchmark
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontEndBenchmark {
+
+    @Param({"fib", "binary_trees", "method_call", "properties", "string_equality", "instantiation", "closures",
+            "string_building", "collections"})
+    String workload;
+
+    private String source;
+    private List<Token> tokens;
+    private List<Stmt> statements;
+
+    @Setup
+    public void prepare(){
+        source = Workloads.source(workload);
+        tokens = new Scanner(source).scanTokens();
+        statements = new Parser(tokens).parse();
+        if(lox.hadError) throw new IllegalStateException(workload + " does not parse");
+    }
+
+    @Benchmark
+    public List<Token> scan(){
+        return new Scanner(source).scanTokens();
+    }
+
+    @Benchmark
+    public List<Stmt> parse(){
+        return new Parser(tokens).parse();
+    }
+
+    @Benchmark
+    public List<Stmt> resolve(){
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
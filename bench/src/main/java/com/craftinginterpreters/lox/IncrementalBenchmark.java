@@ -0,0 +1,61 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// per-edit latency of the incremental front end on a generated 50k line
+// script, against scanning, parsing and resolving the whole file.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.IncrementalBenchmark [lines]
+public class IncrementalBenchmark {
+
+    public static void main(String[] args){
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        int functions = lines / 10;
+        String original = generate(functions, -1);
+        String edited = generate(functions, functions / 2);
+        String shifted = "// one more line\n" + original;
+
+        for(int round = 0; round < 5; round++){
+            long full = time(() -> {
+                List<Stmt> statements = new Parser(new Scanner(original).scanTokens()).parse();
+                new Resolver().resolve(statements);
+            });
+
+            IncrementalFrontEnd frontEnd = new IncrementalFrontEnd();
+            long first = time(() -> frontEnd.update(original));
+            long edit = time(() -> frontEnd.update(edited));
+            long undo = time(() -> frontEnd.update(original));
+            long shift = time(() -> frontEnd.update(shifted));
+
+            System.out.printf("%d lines: full %6.1f ms | incremental first %6.1f ms, " +
+                    "edit %5.1f ms, undo %5.1f ms, insert line at top %5.1f ms%n",
+                    lines, full / 1e6, first / 1e6, edit / 1e6, undo / 1e6, shift / 1e6);
+        }
+    }
+
+    // ten lines per function, the changed one gets a different constant.
+    static String generate(int functions, int changed){
+        StringBuilder source = new StringBuilder();
+        for(int i = 0; i < functions; i++){
+            int constant = i == changed ? 99 : 2;
+            source.append("func f").append(i).append("(n) {\n")
+                  .append("  var s = 0;\n")
+                  .append("  var j = 0;\n")
+                  .append("  while (j < n) {\n")
+                  .append("    s = s + j * ").append(constant).append(";\n")
+                  .append("    j = j + 1;\n")
+                  .append("  }\n")
+                  .append("  if (s > 0) { return s; }\n")
+                  .append("  return -s;\n")
+                  .append("}\n");
+        }
+        return source.toString();
+    }
+
+    private static long time(Runnable run){
+        long start = System.nanoTime();
+        run.run();
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,63 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// whole workload scripts run by the tree walking and the flat interpreter.
+// the scripts are scanned, parsed and resolved once, every invocation runs
+// them in a fresh interpreter whose printed output is formatted and dropped.
+//
+//   mvn -q package
+//   java -jar bench/target/benchmarks.jar InterpreterBenchmark
+//   java -jar bench/target/benchmarks.jar InterpreterBenchmark -p workload=fib
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"fib", "binary_trees", "method_call", "properties", "string_equality", "instantiation", "closures",
+            "string_building", "collections"})
+    String workload;
+
+    private List<Stmt> statements;
+    private FlatAst flat;
+
+    @Setup
+    public void prepare(){
+        statements = new Parser(new Scanner(Workloads.source(workload)).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        if(lox.hadError) throw new IllegalStateException(workload + " does not compile");
+        flat = new Flattener().flatten(statements);
+    }
+
+    @Benchmark
+    public Environment treeWalking(){
+        Interpreter interpreter = new Interpreter();
+        interpreter.output = Output.discard();
+        interpreter.interpret(statements);
+        return interpreter.globals;
+    }
+
+    @Benchmark
+    public Environment flat(){
+        FlatInterpreter interpreter = new FlatInterpreter();
+        interpreter.output = Output.discard();
+        interpreter.interpret(flat);
+        return interpreter.globals;
+    }
+}
@@ -0,0 +1,89 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+
+import jdk.jfr.Recording;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// the cost of the Lox Flight Recorder events on a script that does little
+// but call functions, with no recording running and with a recording using
+// the default thresholds, so that events are timed but fib's calls are too
+// short to be written. each mode runs in a JVM of its own, a recording
+// started in a warm JVM recompiles the call path. the medians are compared.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.JfrBenchmark [n]
+public class JfrBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length > 0 && args[0].equals("--child")){
+            child(args[1].equals("on"), Integer.parseInt(args[2]));
+            return;
+        }
+
+        String n = args.length > 0 ? args[0] : "29";
+        double off = run("off", n);
+        double on = run("on", n);
+        System.out.printf("fib(%s): no recording %7.1f ms   recording %7.1f ms   overhead %+.1f%%%n",
+                n, off, on, (on - off) / off * 100);
+    }
+
+    private static double run(String mode, String n) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                JfrBenchmark.class.getName(), "--child", mode, n)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            double median = Double.parseDouble(reader.readLine());
+            process.waitFor();
+            return median;
+        }
+    }
+
+    private static void child(boolean record, int n) throws IOException {
+        if(record){
+            Path output = Files.createTempFile("jlox-bench", ".jfr");
+            output.toFile().deleteOnExit();
+            Recording recording = new Recording();
+            recording.setDestination(output);
+            recording.start();
+        }
+
+        List<Stmt> fib = prepare(
+                "func fib(n) {\n" +
+                "  if (n < 2) { return n; }\n" +
+                "  return fib(n - 1) + fib(n - 2);\n" +
+                "}\n" +
+                "fib(" + n + ");\n");
+
+        for(int i = 0; i < WARMUP; i++) time(fib);
+
+        double[] times = new double[ROUNDS];
+        for(int i = 0; i < ROUNDS; i++) times[i] = time(fib);
+        Arrays.sort(times);
+        System.out.println(times[ROUNDS / 2]);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,81 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the cost of checking Limits on a script made of nothing but loop
+// iterations and calls, the steps that are counted. it runs without limits
+// and with limits too high to be reached, each in a JVM of its own, and the
+// medians are compared. without limits the budget is still counted down
+// and refilled, the same code runs either way.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.LimitsBenchmark [n]
+public class LimitsBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length > 0 && args[0].equals("--child")){
+            child(args[1].equals("on"), Integer.parseInt(args[2]));
+            return;
+        }
+
+        String n = args.length > 0 ? args[0] : "300000";
+        double off = run("off", n);
+        double on = run("on", n);
+        System.out.printf("%s calls: no limits %7.1f ms   limits %7.1f ms   overhead %+.1f%%%n",
+                n, off, on, (on - off) / off * 100);
+    }
+
+    private static double run(String mode, String n) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                LimitsBenchmark.class.getName(), "--child", mode, n)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            double median = Double.parseDouble(reader.readLine());
+            process.waitFor();
+            return median;
+        }
+    }
+
+    private static void child(boolean limited, int n){
+        List<Stmt> loop = prepare(
+                "func step(total, i) { return total + i * 2; }\n" +
+                "var total = 0;\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { total = step(total, i); }\n");
+
+        for(int i = 0; i < WARMUP; i++) time(loop, limited);
+
+        double[] times = new double[ROUNDS];
+        for(int i = 0; i < ROUNDS; i++) times[i] = time(loop, limited);
+        Arrays.sort(times);
+        System.out.println(times[ROUNDS / 2]);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements, boolean limited){
+        long start = System.nanoTime();
+        Interpreter interpreter = new Interpreter();
+        if(limited){
+            interpreter.limit(new Limits(Long.MAX_VALUE - 1, 100_000, 1L << 40, TimeUnit.MINUTES.toNanos(10)));
+        }
+        interpreter.interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
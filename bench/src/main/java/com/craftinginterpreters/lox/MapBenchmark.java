@@ -0,0 +1,90 @@
+package com.craftinginterpreters.lox;
+
+import java.util.HashMap;
+import java.util.Random;
+
+// LoxMap against a java.util.HashMap holding the same boxed Lox values, on
+// 10M operations: n inserts followed by n lookups, with number keys and with
+// string keys. keys are made before timing starts. sequential keys suit
+// HashMap, whose weak hash spreading leaves consecutive keys in neighbouring
+// buckets, so both kinds of key are also run in a random order.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.MapBenchmark [operations]
+public class MapBenchmark {
+
+    public static void main(String[] args){
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int n = operations / 2;
+
+        double[] sequential = new double[n];
+        for(int i = 0; i < n; i++) sequential[i] = i;
+
+        double[] shuffled = sequential.clone();
+        Random random = new Random(42);
+        for(int i = n - 1; i > 0; i--){
+            int j = random.nextInt(i + 1);
+            double swap = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = swap;
+        }
+
+        String[] strings = new String[n];
+        for(int i = 0; i < n; i++) strings[i] = "key" + i;
+
+        String[] shuffledStrings = new String[n];
+        for(int i = 0; i < n; i++) shuffledStrings[i] = strings[(int)shuffled[i]];
+
+        for(int round = 0; round < 5; round++){
+            System.out.printf("sequential numbers: LoxMap %7.1f ms   HashMap %7.1f ms%n",
+                    loxNumbers(sequential), hashNumbers(sequential));
+            System.out.printf("shuffled numbers:   LoxMap %7.1f ms   HashMap %7.1f ms%n",
+                    loxNumbers(shuffled), hashNumbers(shuffled));
+            System.out.printf("sequential strings: LoxMap %7.1f ms   HashMap %7.1f ms%n",
+                    loxStrings(strings), hashStrings(strings));
+            System.out.printf("shuffled strings:   LoxMap %7.1f ms   HashMap %7.1f ms%n",
+                    loxStrings(shuffledStrings), hashStrings(shuffledStrings));
+        }
+    }
+
+    private static double loxNumbers(double[] keys){
+        long start = System.nanoTime();
+        LoxMap map = new LoxMap();
+        for(double key : keys) map.put(key, "value");
+        int found = 0;
+        for(double key : keys) if(map.get(key) != null) found++;
+        return elapsed(start, found, keys.length);
+    }
+
+    private static double hashNumbers(double[] keys){
+        long start = System.nanoTime();
+        HashMap<Object, Object> map = new HashMap<>();
+        for(double key : keys) map.put(key, "value");
+        int found = 0;
+        for(double key : keys) if(map.get(key) != null) found++;
+        return elapsed(start, found, keys.length);
+    }
+
+    private static double loxStrings(String[] keys){
+        long start = System.nanoTime();
+        LoxMap map = new LoxMap();
+        for(String key : keys) map.put(key, "value");
+        int found = 0;
+        for(String key : keys) if(map.get(key) != null) found++;
+        return elapsed(start, found, keys.length);
+    }
+
+    private static double hashStrings(String[] keys){
+        long start = System.nanoTime();
+        HashMap<Object, Object> map = new HashMap<>();
+        for(String key : keys) map.put(key, "value");
+        int found = 0;
+        for(String key : keys) if(map.get(key) != null) found++;
+        return elapsed(start, found, keys.length);
+    }
+
+    private static double elapsed(long start, int found, int expected){
+        if(found != expected) throw new AssertionError("lost keys: " + found + " of " + expected);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
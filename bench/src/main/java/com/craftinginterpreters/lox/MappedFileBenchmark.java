@@ -0,0 +1,77 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// counting the lines of a generated log that contain "ERROR", reading it with
+// Files.readAllLines against the mapped file view: its line cursor, and
+// find, which jumps from match to match without making any strings. the
+// last row is the find loop written as a Lox script.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.MappedFileBenchmark [lines]
+public class MappedFileBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        Path log = Files.createTempFile("jlox-bench", ".log");
+        log.toFile().deleteOnExit();
+        try(BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8)){
+            for(int i = 0; i < lineCount; i++){
+                writer.write("2024-01-01T00:00:00 " + (i % 100 == 0 ? "ERROR" : "INFO") +
+                        " request " + i + " served in " + (i % 977) + " ms\n");
+            }
+        }
+        double megabytes = Files.size(log) / 1e6;
+
+        List<Stmt> script = prepare(
+                "var f = mmap(\"" + log.toString().replace("\\", "/") + "\");\n" +
+                "var hits = 0;\n" +
+                "var at = f.find(\"ERROR\", 0);\n" +
+                "while (at > -1) { hits = hits + 1; at = f.find(\"ERROR\", at + 5); }\n");
+
+        for(int round = 0; round < 5; round++){
+            long start = System.nanoTime();
+            long readAll = Files.readAllLines(log).stream().filter(line -> line.contains("ERROR")).count();
+            report("Files.readAllLines", start, megabytes, readAll);
+
+            start = System.nanoTime();
+            MappedFile.Lines lines = new MappedFile.Lines(MappedFile.open(log.toString()));
+            long cursor = 0;
+            while(lines.hasNext()){
+                if(lines.next().contains("ERROR")) cursor++;
+            }
+            report("mapped line cursor", start, megabytes, cursor);
+
+            start = System.nanoTime();
+            MappedFile file = MappedFile.open(log.toString());
+            byte[] needle = "ERROR".getBytes(StandardCharsets.UTF_8);
+            long found = 0;
+            for(long at = file.find(needle, 0); at != -1; at = file.find(needle, at + needle.length)){
+                found++;
+            }
+            report("mapped find", start, megabytes, found);
+
+            start = System.nanoTime();
+            new Interpreter().interpret(script);
+            report("mapped find from Lox", start, megabytes, found);
+        }
+    }
+
+    private static void report(String name, long start, double megabytes, long hits){
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-22s %7.1f ms  %6.0f MB/s  (%d hits)%n",
+                name, seconds * 1e3, megabytes / seconds, hits);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
@@ -0,0 +1,79 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// a loop that makes an instance, calls a method on it and does arithmetic,
+// allocating every kind of thing Metrics counts, with and without --stats.
+// each mode runs in a JVM of its own so the JIT sees active as it is for a
+// whole run. the medians are compared, and the --stats run prints its
+// counts, summed over every round.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.MetricsBenchmark [n]
+public class MetricsBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int ROUNDS = 15;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length > 0 && args[0].equals("--child")){
+            child(args[1].equals("on"), Integer.parseInt(args[2]));
+            return;
+        }
+
+        String n = args.length > 0 ? args[0] : "200000";
+        double off = run("off", n);
+        double on = run("on", n);
+        System.out.printf("%s iterations: plain %7.1f ms   --stats %7.1f ms   overhead %+.1f%%%n",
+                n, off, on, (on - off) / off * 100);
+    }
+
+    private static double run(String mode, String n) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                MetricsBenchmark.class.getName(), "--child", mode, n)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            double median = Double.parseDouble(reader.readLine());
+            process.waitFor();
+            return median;
+        }
+    }
+
+    private static void child(boolean counting, int n){
+        Metrics metrics = counting ? Metrics.start() : null;
+
+        List<Stmt> loop = prepare(
+                "class Point { init(x, y) { this.x = x; this.y = y; } norm() { return this.x * this.x + this.y * this.y; } }\n" +
+                "var total = 0;\n" +
+                "for (var i = 0; i < " + n + "; i = i + 1) { total = total + Point(i, i - 1).norm() / 2; }\n");
+
+        for(int i = 0; i < WARMUP; i++) time(loop);
+
+        double[] times = new double[ROUNDS];
+        for(int i = 0; i < ROUNDS; i++) times[i] = time(loop);
+        Arrays.sort(times);
+        System.out.println(times[ROUNDS / 2]);
+        if(metrics != null) metrics.report(System.err);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
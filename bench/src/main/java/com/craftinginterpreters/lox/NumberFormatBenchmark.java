@@ -0,0 +1,71 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// printing 10M numbers, half of them whole and half with two decimal places,
+// into a buffered file sink. Double.toString with ".0" cut off, as Stringify
+// used to do it, against DoubleFormat writing into the output buffer, and
+// then a Lox script printing the same numbers.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.NumberFormatBenchmark [count]
+public class NumberFormatBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Path file = Files.createTempFile("jlox-bench", ".out");
+        file.toFile().deleteOnExit();
+
+        List<Stmt> script = prepare(
+                "for (var i = 0; i < " + count / 2 + "; i = i + 1) { print i; print i + 0.25; }\n");
+
+        for(int round = 0; round < 3; round++){
+            long start = System.nanoTime();
+            Output output = Output.file(file);
+            for(int i = 0; i < count / 2; i++){
+                output.println(toStringAndTrim(i));
+                output.println(toStringAndTrim(i + 0.25));
+            }
+            output.flush();
+            report("Double.toString + substring", start, count);
+
+            start = System.nanoTime();
+            output = Output.file(file);
+            for(int i = 0; i < count / 2; i++){
+                output.println((double)i);
+                output.println(i + 0.25);
+            }
+            output.flush();
+            report("DoubleFormat into the buffer", start, count);
+
+            start = System.nanoTime();
+            Interpreter interpreter = new Interpreter();
+            interpreter.output = Output.file(file);
+            interpreter.interpret(script);
+            report("Lox print", start, count);
+        }
+    }
+
+    private static String toStringAndTrim(double value){
+        String text = Double.toString(value);
+        if(text.endsWith(".0")){
+            text = text.substring(0, text.length() - 2);
+        }
+        return text;
+    }
+
+    private static void report(String name, long start, int count){
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-30s %8.1f ms  %,12.0f numbers/s%n", name, seconds * 1e3, count / seconds);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
@@ -0,0 +1,68 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+// 10M printed lines into a file. first the sinks alone: a PrintStream set up
+// the way System.out is (128 byte buffer, flushed on every println), the
+// output sink line buffered and with its full buffer. then a Lox script
+// printing the same lines through the interpreter with the full buffer.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.OutputBenchmark [lines]
+public class OutputBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+
+        Path file = Files.createTempFile("jlox-bench", ".out");
+        file.toFile().deleteOnExit();
+
+        List<Stmt> script = prepare(
+                "for (var i = 0; i < " + lines + "; i = i + 1) { print \"line\"; }\n");
+
+        for(int round = 0; round < 3; round++){
+            long start = System.nanoTime();
+            try(PrintStream stream = new PrintStream(
+                    new BufferedOutputStream(new FileOutputStream(file.toFile()), 128), true)){
+                for(int i = 0; i < lines; i++) stream.println("line");
+            }
+            report("System.out style PrintStream", start, lines);
+
+            start = System.nanoTime();
+            Output output = Output.file(file);
+            output.setLineBuffered(true);
+            for(int i = 0; i < lines; i++) output.println("line");
+            output.flush();
+            report("sink, line buffered", start, lines);
+
+            start = System.nanoTime();
+            output = Output.file(file);
+            for(int i = 0; i < lines; i++) output.println("line");
+            output.flush();
+            report("sink, 64KB buffer", start, lines);
+
+            start = System.nanoTime();
+            Interpreter interpreter = new Interpreter();
+            interpreter.output = Output.file(file);
+            interpreter.interpret(script);
+            report("Lox print, 64KB buffer", start, lines);
+        }
+    }
+
+    private static void report(String name, long start, int lines){
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%-30s %8.1f ms  %,12.0f lines/s%n", name, seconds * 1e3, lines / seconds);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
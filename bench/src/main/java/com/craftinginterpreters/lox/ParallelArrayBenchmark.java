@@ -0,0 +1,64 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// pmap, pfilter and preduce against the same work done by a serial loop over
+// the array. the common pool sizes itself to the cores the JVM sees, so one
+// run per thread count gives the points of the scaling curve:
+//
+//   mvn -q package
+//   for n in 1 2 4 8 16; do
+//     java -XX:ActiveProcessorCount=$n -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ParallelArrayBenchmark
+//   done
+public class ParallelArrayBenchmark {
+
+    private static final String SETUP =
+            "func work(x) {\n" +
+            "  var sum = 0;\n" +
+            "  for (var j = 0; j < 500; j = j + 1) { sum = sum + (x * j) / (j + 1); }\n" +
+            "  return sum;\n" +
+            "}\n" +
+            "func small(x) { return work(x) < 1000000; }\n" +
+            "func add(x, y) { return x + work(y) - work(y) + y; }\n";
+
+    public static void main(String[] args){
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+        String input = "var a = array();\n" +
+                "for (var i = 0; i < " + items + "; i = i + 1) { a.push(i); }\n";
+
+        List<Stmt> serial = prepare(SETUP + input +
+                "var m = array();\n" +
+                "for (var i = 0; i < a.length(); i = i + 1) { m.push(work(a.get(i))); }\n" +
+                "var f = array();\n" +
+                "for (var i = 0; i < a.length(); i = i + 1) { if (small(a.get(i))) { f.push(a.get(i)); } }\n" +
+                "var r = 0;\n" +
+                "for (var i = 0; i < a.length(); i = i + 1) { r = add(r, a.get(i)); }\n");
+        List<Stmt> parallel = prepare(SETUP + input +
+                "var m = pmap(a, work);\n" +
+                "var f = pfilter(a, small);\n" +
+                "var r = preduce(a, add, 0);\n");
+
+        double serialTime = 0;
+        double parallelTime = 0;
+        for(int round = 0; round < 5; round++){
+            serialTime = time(serial);
+            parallelTime = time(parallel);
+        }
+
+        System.out.printf("threads %2d: serial %7.1f ms  parallel %7.1f ms  speedup %.2fx%n",
+                Runtime.getRuntime().availableProcessors(),
+                serialTime, parallelTime, serialTime / parallelTime);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,53 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// speedup of parallel for over the serial for on independent iterations.
+// the common pool sizes itself to the cores the JVM sees, so one run per
+// core count gives the points of the speedup curve:
+//
+//   mvn -q package
+//   for n in 1 2 4 8 16; do
+//     java -XX:ActiveProcessorCount=$n -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ParallelForBenchmark
+//   done
+public class ParallelForBenchmark {
+
+    private static final String WORK =
+            "func work(i) {\n" +
+            "  var sum = 0;\n" +
+            "  for (var j = 0; j < 2000; j = j + 1) { sum = sum + (i * j) / (j + 1); }\n" +
+            "  return sum;\n" +
+            "}\n";
+
+    public static void main(String[] args){
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+
+        List<Stmt> serial = prepare(WORK +
+                "for (var i = 0; i < " + items + "; i = i + 1) { work(i); }\n");
+        List<Stmt> parallel = prepare(WORK +
+                "parallel for (var i = 0; i < " + items + "; i = i + 1) { work(i); }\n");
+
+        double serialTime = 0;
+        double parallelTime = 0;
+        for(int round = 0; round < 5; round++){
+            serialTime = time(serial);
+            parallelTime = time(parallel);
+        }
+
+        System.out.printf("cores %2d: serial %7.1f ms  parallel %7.1f ms  speedup %.2fx%n",
+                Runtime.getRuntime().availableProcessors(),
+                serialTime, parallelTime, serialTime / parallelTime);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        new Interpreter().interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
@@ -0,0 +1,131 @@
+package com.craftinginterpreters.lox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+// the cost of --profile, on fib, a script that does little but call
+// functions and so the worst case for the shadow stack, and on the
+// closures workload, which does some work between calls. --profile is
+// decided at start up, so each mode is timed in JVMs of its own: turning
+// the profiler on in a warm JVM makes the JIT throw away and recompile the
+// call path, which measures the recompilation rather than the profiler.
+//
+// one JVM is often tens of percent slower than the next on a busy machine,
+// far more than the profiler costs, and the machine drifts between slow and
+// fast spells lasting seconds. so the JVMs are kept short and run in
+// triples, off, on, off: a triple gives the overhead against the mean of
+// its two off runs and, as the noise floor, the difference between those
+// two. the median overhead over all triples is printed with its 95%
+// confidence interval, which needs no assumption about how the noise is
+// spread; the overhead is only measured when that interval is narrower
+// than what is being claimed. a JVM reports the fastest of its rounds,
+// noise only ever makes a round slower.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ProfilerBenchmark [n] [triples]
+public class ProfilerBenchmark {
+
+    private static final int WARMUP = 10;
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if(args.length > 0 && args[0].equals("--child")){
+            child(args[1].equals("on"), args[2], args[3]);
+            return;
+        }
+
+        String n = args.length > 0 ? args[0] : "25";
+        int triples = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        compare("fib(" + n + ")", "fib", n, triples);
+        compare("closures", "closures", n, triples);
+    }
+
+    private static void compare(String name, String workload, String n, int triples)
+            throws IOException, InterruptedException {
+        double[] overhead = new double[triples];
+        double[] noise = new double[triples];
+        double[] off = new double[triples];
+        for(int i = 0; i < triples; i++){
+            double before = run("off", workload, n);
+            double on = run("on", workload, n);
+            double after = run("off", workload, n);
+
+            off[i] = (before + after) / 2;
+            overhead[i] = (on - off[i]) / off[i] * 100;
+            noise[i] = Math.abs(after - before) / off[i] * 100;
+        }
+
+        Arrays.sort(overhead);
+        // the order statistics around the median that bound it 95% of the time.
+        int spread = (int)Math.ceil(0.98 * Math.sqrt(triples));
+        double low = overhead[Math.max(0, (triples - 1) / 2 - spread)];
+        double high = overhead[Math.min(triples - 1, triples / 2 + spread)];
+
+        System.out.printf("%-10s %d triples, profiling off %6.1f ms   overhead median %+5.1f%%, 95%% CI %+.1f%% to %+.1f%%   " +
+                        "off against off median %4.1f%%%n",
+                name, triples, median(off), median(overhead), low, high, median(noise));
+    }
+
+    private static double median(double[] samples){
+        double[] sorted = samples.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+        return n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2;
+    }
+
+    private static double run(String mode, String workload, String n) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ProfilerBenchmark.class.getName(), "--child", mode, workload, n)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        try(BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))){
+            double fastest = Double.parseDouble(reader.readLine());
+            process.waitFor();
+            return fastest;
+        }
+    }
+
+    private static void child(boolean profile, String workload, String n) throws IOException {
+        if(profile){
+            Path output = Files.createTempFile("jlox-bench", ".collapsed");
+            output.toFile().deleteOnExit();
+            Profiler.start(output);
+        }
+
+        List<Stmt> script = prepare(workload.equals("fib")
+                ? "func fib(n) {\n" +
+                  "  if (n < 2) { return n; }\n" +
+                  "  return fib(n - 1) + fib(n - 2);\n" +
+                  "}\n" +
+                  "fib(" + n + ");\n"
+                : Workloads.source(workload));
+
+        for(int i = 0; i < WARMUP; i++) time(script);
+
+        double fastest = Double.MAX_VALUE;
+        for(int i = 0; i < ROUNDS; i++) fastest = Math.min(fastest, time(script));
+        System.out.println(fastest);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+
+    private static double time(List<Stmt> statements){
+        long start = System.nanoTime();
+        Interpreter interpreter = new Interpreter();
+        interpreter.output = Output.discard();
+        interpreter.interpret(statements);
+        return (System.nanoTime() - start) / 1e6;
+    }
+}
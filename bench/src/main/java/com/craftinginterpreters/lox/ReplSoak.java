@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// feeds a long lived interpreter one REPL-sized input at a time, the way
+// runPrompt and embedders do, and samples the heap after a full gc. the used
+// heap should stay flat once the globals the inputs define exist.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.ReplSoak [evaluations]
+public class ReplSoak {
+
+    private static final String[] inputs = {
+        "var counter = 0;",
+        "func bump(n) { var step = n; { var inner = step; counter = counter + inner; } return counter; }",
+        "bump(1);",
+        "class Point { init(x) { this.x = x; } get() { return this.x; } }",
+        "var p = Point(counter);",
+        "p.get() + bump(2);",
+        "{ var local = p.get(); counter = local; }",
+    };
+
+    public static void main(String[] args){
+        int evaluations = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int sample = Math.max(1, evaluations / 10);
+        Interpreter interpreter = new Interpreter();
+
+        for(int i = 1; i <= evaluations; i++){
+            String source = inputs[(i - 1) % inputs.length];
+            List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+            new Resolver().resolve(statements);
+            interpreter.interpret(statements);
+
+            if(i % sample == 0){
+                System.out.printf("%,10d evaluations: %,d bytes used%n", i, usedHeap());
+            }
+        }
+    }
+
+    private static long usedHeap(){
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 4; i++){
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
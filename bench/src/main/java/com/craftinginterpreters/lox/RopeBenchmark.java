@@ -0,0 +1,45 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// a script appending 100k fragments to one string in a loop and printing
+// it once at the end, against the same appends done the way + did before
+// ropes, copying both sides into a new String every time.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.RopeBenchmark [fragments]
+public class RopeBenchmark {
+
+    public static void main(String[] args){
+        int fragments = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        List<Stmt> script = prepare(
+                "var report = \"\";\n" +
+                "for (var i = 0; i < " + fragments + "; i = i + 1) { report = report + \"row of the report;\"; }\n");
+
+        for(int round = 0; round < 3; round++){
+            long start = System.nanoTime();
+            String copied = "";
+            for(int i = 0; i < fragments; i++){
+                copied = copied + "row of the report;";
+            }
+            report("String copies", start, copied.length());
+
+            start = System.nanoTime();
+            Interpreter interpreter = new Interpreter();
+            interpreter.interpret(script);
+            Object rope = interpreter.globals.getAt(0, Symbols.intern("report"));
+            report("Lox + with ropes", start, Interpreter.Stringify(rope).length());
+        }
+    }
+
+    private static void report(String name, long start, int length){
+        System.out.printf("%-18s %8.1f ms  (%d chars)%n", name, (System.nanoTime() - start) / 1e6, length);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
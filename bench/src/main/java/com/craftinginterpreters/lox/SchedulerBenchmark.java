@@ -0,0 +1,105 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// how long short scripts take to finish while long ones run alongside, and
+// how many threads it takes. a few long scripts are started, then short
+// scripts arrive one a millisecond; the latency of a short script is from
+// its submission to its end. with time slices a short script waits a slice
+// for each script ahead of it, with slices too long to ever end it waits for
+// the long scripts to finish. then a burst of scripts is submitted at once,
+// with the number of resident scripts bounded and with it unbounded, the
+// way every script got a thread of its own before. each line prints the
+// latency distribution and the peak number of live threads in the JVM,
+// after a round to warm up.
+//
+//   mvn -q package
+//   java -cp bench/target/benchmarks.jar com.craftinginterpreters.lox.SchedulerBenchmark [workers]
+public class SchedulerBenchmark {
+
+    private static final int LONG_SCRIPTS = 4;
+    private static final int SHORT_SCRIPTS = 300;
+    private static final int BURST = 2000;
+    private static final long ARRIVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args){
+        int workers = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int resident = workers * Scheduler.DEFAULT_RESIDENT_PER_WORKER;
+
+        List<Stmt> longScript = prepare(
+                "func fib(n) {\n" +
+                "  if (n < 2) { return n; }\n" +
+                "  return fib(n - 1) + fib(n - 2);\n" +
+                "}\n" +
+                "print fib(27);\n");
+        List<Stmt> shortScript = prepare(
+                "var total = 0;\n" +
+                "for (var i = 0; i < 2000; i = i + 1) { total = total + i; }\n" +
+                "print total;\n");
+
+        System.out.printf("%d workers, %d resident scripts%n", workers, resident);
+        arrivals("warm up", new Scheduler(workers, Scheduler.DEFAULT_SLICE_NANOS), longScript, shortScript);
+        arrivals("run to completion", new Scheduler(workers, Long.MAX_VALUE), longScript, shortScript);
+        arrivals("1 ms slices", new Scheduler(workers, Scheduler.DEFAULT_SLICE_NANOS), longScript, shortScript);
+        burst("burst, bounded", new Scheduler(workers, resident, Scheduler.DEFAULT_SLICE_NANOS), shortScript);
+        burst("burst, unbounded", new Scheduler(workers, Integer.MAX_VALUE, Scheduler.DEFAULT_SLICE_NANOS), shortScript);
+    }
+
+    private static void arrivals(String name, Scheduler scheduler, List<Stmt> longScript, List<Stmt> shortScript){
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        for(int i = 0; i < LONG_SCRIPTS; i++){
+            running.add(scheduler.submit(longScript, Output.discard(), null));
+        }
+
+        long[] latencies = new long[SHORT_SCRIPTS];
+        for(int i = 0; i < SHORT_SCRIPTS; i++){
+            running.add(submit(scheduler, shortScript, latencies, i));
+            LockSupport.parkNanos(ARRIVAL_NANOS);
+        }
+        report(name, running, latencies, start);
+    }
+
+    private static void burst(String name, Scheduler scheduler, List<Stmt> shortScript){
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+
+        List<CompletableFuture<Void>> running = new ArrayList<>();
+        long[] latencies = new long[BURST];
+        for(int i = 0; i < BURST; i++){
+            running.add(submit(scheduler, shortScript, latencies, i));
+        }
+        report(name, running, latencies, start);
+    }
+
+    private static CompletableFuture<Void> submit(Scheduler scheduler, List<Stmt> script, long[] latencies, int index){
+        long submitted = System.nanoTime();
+        return scheduler.submit(script, Output.discard(), null)
+                .thenRun(() -> latencies[index] = System.nanoTime() - submitted);
+    }
+
+    private static void report(String name, List<CompletableFuture<Void>> running, long[] latencies, long start){
+        CompletableFuture.allOf(running.toArray(new CompletableFuture[0])).join();
+
+        BenchRunner.Summary summary = new BenchRunner.Summary(latencies);
+        System.out.printf("%-18s short script latency ms: median %7.2f  p99 %7.2f  mean %7.2f   peak threads %5d   all done in %6.0f ms%n",
+                name, summary.median / 1e6, summary.p99 / 1e6, summary.mean / 1e6,
+                threads.getPeakThreadCount(), (System.nanoTime() - start) / 1e6);
+    }
+
+    private static List<Stmt> prepare(String source){
+        List<Stmt> statements = new Parser(new Scanner(source).scanTokens()).parse();
+        new Resolver().resolve(statements);
+        return statements;
+    }
+}
@@ -0,0 +1,22 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// the Lox scripts under bench/scripts, packaged into the benchmarks jar.
+final class Workloads {
+
+    private Workloads(){
+    }
+
+    static String source(String name){
+        try(InputStream in = Workloads.class.getResourceAsStream("/scripts/" + name + ".lox")){
+            if(in == null) throw new IllegalArgumentException("no workload named " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }catch (IOException error){
+            throw new UncheckedIOException(error);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// --bench: runs each script many times in one JVM and reports how long a
+// run takes and how much it allocates. a script is scanned, parsed and
+// resolved once; every run starts from a fresh interpreter, so globals
+// from the run before do not leak in, and its printed output is formatted
+// and dropped. the warm up runs let the JIT compile the interpreter before
+// anything is measured.
+//
+// every run is held to the limits given on the command line, each run gets
+// the whole of them. a run that goes over is a runtime error like any other
+// and stops the benchmark.
+//
+// allocation is what the running thread allocated during a run, as the JVM
+// counts it. spawned tasks and parallel loops allocate on other threads and
+// are not included.
+final class BenchRunner {
+
+    static final int DEFAULT_WARMUP = 5;
+    static final int DEFAULT_ITERATIONS = 20;
+
+    private final int warmup;
+    private final int iterations;
+    private final boolean flat;
+    private final Limits limits;
+    private final com.sun.management.ThreadMXBean threads;
+
+    BenchRunner(int warmup, int iterations, boolean flat, Limits limits){
+        this.warmup = warmup;
+        this.iterations = iterations;
+        this.flat = flat;
+        this.limits = limits;
+
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()
+                ? (com.sun.management.ThreadMXBean)bean : null;
+        if(threads != null) threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    // the measurements of one script.
+    static final class Result {
+        final String script;
+        final long[] nanos;
+        // bytes allocated by each run, null when the JVM does not count them.
+        final long[] bytes;
+
+        Result(String script, long[] nanos, long[] bytes){
+            this.script = script;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+    }
+
+    static final class Summary {
+        final double mean;
+        final double median;
+        final double p99;
+        final double stddev;
+
+        Summary(long[] samples){
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            int n = sorted.length;
+
+            double sum = 0;
+            for(long sample : sorted) sum += sample;
+            mean = sum / n;
+
+            median = n % 2 == 1 ? sorted[n / 2] : (sorted[n / 2 - 1] + sorted[n / 2]) / 2.0;
+            // nearest rank, the highest sample until there are a hundred.
+            p99 = sorted[Math.max(0, (int)Math.ceil(0.99 * n) - 1)];
+
+            double squares = 0;
+            for(long sample : sorted) squares += (sample - mean) * (sample - mean);
+            stddev = n > 1 ? Math.sqrt(squares / (n - 1)) : 0;
+        }
+    }
+
+    // runs the script at path, or returns null after reporting why it could not.
+    Result run(Path path) throws IOException {
+        List<Stmt> statements;
+        try(Source source = Source.open(path)){
+            statements = new Parser(new Scanner(source).scanTokens()).parse();
+        }
+        if(lox.hadError) return null;
+        new Resolver().resolve(statements);
+        if(lox.hadError) return null;
+        FlatAst program = flat ? new Flattener().flatten(statements) : null;
+
+        for(int i = 0; i < warmup; i++){
+            if(!runOnce(statements, program)) return null;
+        }
+
+        long[] nanos = new long[iterations];
+        long[] bytes = threads != null ? new long[iterations] : null;
+        long thread = Thread.currentThread().getId();
+        for(int i = 0; i < iterations; i++){
+            long allocated = threads != null ? threads.getThreadAllocatedBytes(thread) : 0;
+            long start = System.nanoTime();
+            if(!runOnce(statements, program)) return null;
+            nanos[i] = System.nanoTime() - start;
+            if(bytes != null) bytes[i] = threads.getThreadAllocatedBytes(thread) - allocated;
+        }
+        return new Result(path.toString(), nanos, bytes);
+    }
+
+    private boolean runOnce(List<Stmt> statements, FlatAst program){
+        if(flat){
+            FlatInterpreter interpreter = new FlatInterpreter();
+            interpreter.output = Output.discard();
+            if(limits != null) interpreter.limit(limits);
+            interpreter.interpret(program);
+        }else{
+            Interpreter interpreter = new Interpreter();
+            interpreter.output = Output.discard();
+            if(limits != null) interpreter.limit(limits);
+            interpreter.interpret(statements);
+        }
+        // a runtime error has been reported, the script can not be measured.
+        return !lox.hadError;
+    }
+
+    void printText(List<Result> results, PrintStream out){
+        out.printf("%d runs of each script after %d to warm up, %s interpreter%n",
+                iterations, warmup, flat ? "flat" : "tree walking");
+        for(Result result : results){
+            out.println(result.script);
+            out.printf("  %-10s %12s %12s %12s %12s%n", "", "mean", "median", "p99", "stddev");
+            row(out, "time ms", new Summary(result.nanos), 1e6);
+            if(result.bytes != null) row(out, "alloc MB", new Summary(result.bytes), 1 << 20);
+        }
+        out.flush();
+    }
+
+    private static void row(PrintStream out, String name, Summary summary, double unit){
+        out.printf("  %-10s %12.3f %12.3f %12.3f %12.3f%n", name,
+                summary.mean / unit, summary.median / unit, summary.p99 / unit, summary.stddev / unit);
+    }
+
+    void writeJson(List<Result> results, Path path) throws IOException {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n  \"interpreter\": \"").append(flat ? "flat" : "tree walking").append("\",\n");
+        json.append("  \"warmup\": ").append(warmup).append(",\n");
+        json.append("  \"iterations\": ").append(iterations).append(",\n");
+        json.append("  \"results\": [");
+        for(int i = 0; i < results.size(); i++){
+            Result result = results.get(i);
+            json.append(i == 0 ? "\n" : ",\n");
+            json.append("    {\n      \"script\": ");
+            string(json, result.script);
+            json.append(",\n      \"time_ns\": ");
+            summary(json, result.nanos);
+            if(result.bytes != null){
+                json.append(",\n      \"alloc_bytes\": ");
+                summary(json, result.bytes);
+            }
+            json.append("\n    }");
+        }
+        json.append("\n  ]\n}\n");
+        Files.writeString(path, json, StandardCharsets.UTF_8);
+    }
+
+    private static void summary(StringBuilder json, long[] samples){
+        Summary summary = new Summary(samples);
+        json.append("{\"mean\": ").append(summary.mean)
+                .append(", \"median\": ").append(summary.median)
+                .append(", \"p99\": ").append(summary.p99)
+                .append(", \"stddev\": ").append(summary.stddev)
+                .append(", \"samples\": ").append(Arrays.toString(samples))
+                .append('}');
+    }
+
+    private static void string(StringBuilder json, String text){
+        json.append('"');
+        for(int i = 0; i < text.length(); i++){
+            char c = text.charAt(i);
+            if(c == '"' || c == '\\'){
+                json.append('\\').append(c);
+            }else if(c < 0x20){
+                json.append(String.format("\\u%04x", (int)c));
+            }else{
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    // runs every script, held to limits unless they are null, then prints the
+    // report and writes the JSON to json unless it is null.
+    static boolean runAll(List<String> scripts, int warmup, int iterations, boolean flat, Limits limits,
+            Path json) throws IOException {
+        BenchRunner runner = new BenchRunner(warmup, iterations, flat, limits);
+        List<Result> results = new ArrayList<>();
+        for(String script : scripts){
+            Result result = runner.run(Path.of(script));
+            if(result == null) return false;
+            results.add(result);
+        }
+
+        runner.printText(results, System.out);
+        if(json != null) runner.writeJson(results, json);
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package com.craftinginterpreters.lox;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// spawn, join, bounded channels and freeze.
+// a spawned function runs on its own thread with a fresh execution state over
+// the same globals, so what it shares with the code that spawned it is the
+// globals and the objects its closure reaches. neither globals nor instance
+// fields are synchronized: hand data over through channels, or freeze it
+// first so every thread can read it.
+final class Concurrency {
+
+    // a virtual thread per task where the runtime has them (java 21+), a
+    // cached pool of daemon threads otherwise.
+    static final ExecutorService executor = createExecutor();
+
+    // channels hold nil as this, blocking queues do not take null.
+    private static final Object NIL = new Object();
+
+    private Concurrency(){}
+
+    static final class Task {
+        final Future<Object> future;
+
+        Task(Future<Object> future){
+            this.future = future;
+        }
+
+        @Override
+        public String toString(){
+            return "<task>";
+        }
+    }
+
+    static final class Channel {
+        final BlockingQueue<Object> queue;
+
+        Channel(int capacity){
+            this.queue = new ArrayBlockingQueue<>(capacity);
+        }
+
+        @Override
+        public String toString(){
+            return "<channel>";
+        }
+    }
+
+    static void define(Environment globals){
+        globals.define("spawn", new NativeFunction(1, (interpreter, arguments) -> {
+            LoxCallable function = NativeFunction.argument(arguments, 0, LoxCallable.class,
+                    "spawn expects a function");
+            if(function.aerity() != 0){
+                throw new RuntimeError(null, "spawn expects a function with no parameters");
+            }
+
+            Interpreter state = interpreter.fork();
+            return new Task(executor.submit(
+                    () -> function.call(state, Collections.emptyList())));
+        }));
+
+        globals.define("join", new NativeFunction(1, (interpreter, arguments) -> {
+            Task task = NativeFunction.argument(arguments, 0, Task.class, "join expects a task");
+            try{
+                return task.future.get();
+            }catch (ExecutionException error){
+                // a runtime error in the task is raised again where it is joined.
+                if(error.getCause() instanceof RuntimeError) throw (RuntimeError)error.getCause();
+                throw new RuntimeError(null, "task failed: " + error.getCause());
+            }catch (InterruptedException error){
+                Thread.currentThread().interrupt();
+                throw new RuntimeError(null, "interrupted while joining a task");
+            }
+        }));
+
+        globals.define("channel", new NativeFunction(1, (interpreter, arguments) -> {
+            int capacity = NativeFunction.count(arguments, 0,
+                    "channel expects a positive whole capacity");
+            if(capacity == 0) throw new RuntimeError(null, "channel expects a positive whole capacity");
+            return new Channel(capacity);
+        }));
+
+        globals.define("send", new NativeFunction(2, (interpreter, arguments) -> {
+            Channel channel = NativeFunction.argument(arguments, 0, Channel.class,
+                    "send expects a channel");
+            Object value = arguments.get(1);
+            try{
+                channel.queue.put(value == null ? NIL : value);
+            }catch (InterruptedException error){
+                Thread.currentThread().interrupt();
+                throw new RuntimeError(null, "interrupted while sending");
+            }
+            return null;
+        }));
+
+        globals.define("freeze", new NativeFunction(1,
+                (interpreter, arguments) -> freeze(arguments.get(0))));
+
+        globals.define("receive", new NativeFunction(1, (interpreter, arguments) -> {
+            Channel channel = NativeFunction.argument(arguments, 0, Channel.class,
+                    "receive expects a channel");
+            try{
+                Object value = channel.queue.take();
+                return value == NIL ? null : value;
+            }catch (InterruptedException error){
+                Thread.currentThread().interrupt();
+                throw new RuntimeError(null, "interrupted while receiving");
+            }
+        }));
+    }
+
+    // freezes value and everything reachable from it through fields. functions
+    // are left as they are, only instances and collections are frozen.
+    static Object freeze(Object value){
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.add(value);
+
+        while(!pending.isEmpty()){
+            Object next = pending.poll();
+            if(next instanceof Freezable && !((Freezable)next).isFrozen()){
+                ((Freezable)next).freeze(pending);
+            }
+        }
+        return value;
+    }
+
+    private static ExecutorService createExecutor(){
+        try{
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService)virtual.invoke(null);
+        }catch (ReflectiveOperationException notAvailable){
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "lox-task");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import com.craftinginterpreters.lox.Expr.*;
+
+// the --counters interpreter. it counts how often every statement runs and
+// how long it takes, and the same for every call site and function, and
+// prints the hottest lines and functions to standard error at exit.
+// the counting lives in the overrides of execute and call, so the plain
+// interpreter has no checks for it; a script run without --counters never
+// loads this class.
+//
+// a statement's self time leaves out the statements nested in it, so the
+// time of a loop lands on the lines of its body. the total time of a
+// function or call site is only counted for the outermost of its calls on a
+// thread, recursion does not count the same time twice.
+class CountingInterpreter extends Interpreter {
+
+    static final int REPORT_LINES = 20;
+
+    static final class Counter {
+        final String label;
+        final int line;
+        final LongAdder count = new LongAdder();
+        final LongAdder self = new LongAdder();
+        final LongAdder total = new LongAdder();
+
+        Counter(String label, int line){
+            this.label = label;
+            this.line = line;
+        }
+    }
+
+    // shared by every fork, keyed by node or token identity.
+    private final Map<Stmt, Counter> statements;
+    private final Map<Token, Counter> sites;
+    private final Map<Object, Counter> functions;
+
+    // per thread: time spent in nested statements of the running one, and
+    // how deep each function and call site is in this thread's calls.
+    private long nested = 0;
+    private final Map<Counter, int[]> depths = new HashMap<>();
+
+    CountingInterpreter(){
+        statements = new ConcurrentHashMap<>();
+        sites = new ConcurrentHashMap<>();
+        functions = new ConcurrentHashMap<>();
+    }
+
+    private CountingInterpreter(CountingInterpreter parent){
+        super(parent);
+        statements = parent.statements;
+        sites = parent.sites;
+        functions = parent.functions;
+    }
+
+    @Override
+    Interpreter fork(){
+        return new CountingInterpreter(this);
+    }
+
+    // counts until the JVM exits, then prints the report.
+    CountingInterpreter reportAtExit(PrintStream out){
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> report(out)));
+        return this;
+    }
+
+    @Override
+    void execute(Stmt stmt){
+        Counter counter = statements.computeIfAbsent(stmt, node -> new Counter(null, line(node)));
+
+        long outer = nested;
+        nested = 0;
+        long start = System.nanoTime();
+        try{
+            super.execute(stmt);
+        }finally{
+            long elapsed = System.nanoTime() - start;
+            counter.count.increment();
+            counter.self.add(elapsed - nested);
+            counter.total.add(elapsed);
+            nested = outer + elapsed;
+        }
+    }
+
+    // sites are named after the callee expression, natives have no name of
+    // their own.
+    @Override
+    public Object visitCallExpr(Call expr){
+        sites.computeIfAbsent(expr.paren, token -> new Counter(name(expr.callee), token.line));
+        return super.visitCallExpr(expr);
+    }
+
+    @Override
+    Object call(Object callee, List<Object> arguments, Token paren){
+        Counter site = sites.computeIfAbsent(paren, token -> new Counter(String.valueOf(callee), token.line));
+        Counter function = function(callee, site);
+
+        int[] siteDepth = depths.computeIfAbsent(site, key -> new int[1]);
+        int[] functionDepth = depths.computeIfAbsent(function, key -> new int[1]);
+        siteDepth[0]++;
+        functionDepth[0]++;
+
+        long start = System.nanoTime();
+        try{
+            return super.call(callee, arguments, paren);
+        }finally{
+            long elapsed = System.nanoTime() - start;
+            site.count.increment();
+            function.count.increment();
+            if(--siteDepth[0] == 0) site.total.add(elapsed);
+            if(--functionDepth[0] == 0) function.total.add(elapsed);
+        }
+    }
+
+    // a Lox function is the same one however often it is bound or closed
+    // over, so it is keyed by its declaration's name token. natives are made
+    // afresh for every method lookup and go by the name they are called by.
+    private Counter function(Object callee, Counter site){
+        if(callee instanceof LoxFunction){
+            Token name = ((LoxFunction)callee).name();
+            return functions.computeIfAbsent(name, key -> new Counter(name.lexeme, name.line));
+        }
+        return functions.computeIfAbsent(site.label, key -> new Counter(site.label, 0));
+    }
+
+    private static String name(Expr callee){
+        if(callee instanceof Var variable) return variable.name.lexeme;
+        if(callee instanceof Get get) return get.name.lexeme;
+        if(callee instanceof Super superExpr) return superExpr.method.lexeme;
+        return "<expression>";
+    }
+
+    // the line a statement starts on, 0 when it has no token to tell.
+    static int line(Stmt stmt){
+        if(stmt instanceof Stmt.Block block){
+            return block.statements.isEmpty() ? 0 : line(block.statements.get(0));
+        }
+        if(stmt instanceof Stmt.Expression statement) return line(statement.expression);
+        if(stmt instanceof Stmt.Class statement) return statement.name.line;
+        if(stmt instanceof Stmt.Func statement) return statement.name.line;
+        if(stmt instanceof Stmt.If statement) return line(statement.condition);
+        if(stmt instanceof Stmt.While statement) return statement.keyword.line;
+        if(stmt instanceof Stmt.ParallelFor statement) return statement.keyword.line;
+        if(stmt instanceof Stmt.Print statement) return line(statement.expression);
+        if(stmt instanceof Stmt.Var statement) return statement.name.line;
+        if(stmt instanceof Stmt.Return statement) return statement.keyword.line;
+        return 0;
+    }
+
+    // the leftmost token of an expression that has one.
+    static int line(Expr expr){
+        if(expr instanceof Binary binary){
+            int line = line(binary.left);
+            return line != 0 ? line : binary.operator.line;
+        }
+        if(expr instanceof logical logical){
+            int line = line(logical.left);
+            return line != 0 ? line : logical.operator.line;
+        }
+        if(expr instanceof Call call){
+            int line = line(call.callee);
+            return line != 0 ? line : call.paren.line;
+        }
+        if(expr instanceof Get get){
+            int line = line(get.object);
+            return line != 0 ? line : get.name.line;
+        }
+        if(expr instanceof Set set){
+            int line = line(set.object);
+            return line != 0 ? line : set.name.line;
+        }
+        if(expr instanceof Grouping grouping) return line(grouping.expression);
+        if(expr instanceof Assignment assignment) return assignment.name.line;
+        if(expr instanceof Unary unary) return unary.operator.line;
+        if(expr instanceof Super superExpr) return superExpr.keyword.line;
+        if(expr instanceof This thisExpr) return thisExpr.keyword.line;
+        if(expr instanceof Var variable) return variable.name.line;
+        return 0;
+    }
+
+    void report(PrintStream out){
+        // statements sharing a line are one row.
+        Map<Integer, Counter> lines = new TreeMap<>();
+        for(Counter counter : statements.values()){
+            Counter row = lines.computeIfAbsent(counter.line, line -> new Counter(null, line));
+            row.count.add(counter.count.sum());
+            row.self.add(counter.self.sum());
+        }
+
+        out.println("hot lines");
+        out.printf("  %-8s %14s %12s%n", "line", "executions", "self ms");
+        for(Counter row : hottest(lines.values(), row -> row.self.sum())){
+            out.printf("  %-8s %,14d %12.1f%n", row.line == 0 ? "?" : row.line,
+                    row.count.sum(), row.self.sum() / 1e6);
+        }
+
+        out.println("hot functions");
+        out.printf("  %-24s %14s %12s%n", "function", "calls", "total ms");
+        for(Counter function : hottest(functions.values(), function -> function.total.sum())){
+            String label = function.line == 0 ? function.label : function.label + ":" + function.line;
+            out.printf("  %-24s %,14d %12.1f%n", label, function.count.sum(), function.total.sum() / 1e6);
+        }
+
+        out.println("hot call sites");
+        out.printf("  %-8s %-15s %14s %12s%n", "line", "function", "calls", "total ms");
+        for(Counter site : hottest(sites.values(), site -> site.total.sum())){
+            out.printf("  %-8d %-15s %,14d %12.1f%n", site.line, site.label,
+                    site.count.sum(), site.total.sum() / 1e6);
+        }
+        out.flush();
+    }
+
+    private static List<Counter> hottest(Iterable<Counter> counters, ToLongFunction<Counter> key){
+        List<Counter> sorted = new ArrayList<>();
+        for(Counter counter : counters) sorted.add(counter);
+        sorted.sort(Comparator.comparingLong(key).reversed());
+        return sorted.size() > REPORT_LINES ? sorted.subList(0, REPORT_LINES) : sorted;
+    }
+}
@@ -0,0 +1,96 @@
+package com.craftinginterpreters.lox;
+
+import java.nio.charset.StandardCharsets;
+
+// number to text the way Lox prints numbers: Double.toString with a trailing
+// ".0" dropped. the numbers scripts print are mostly whole, or have a few
+// decimal places, and below 10^7 where Double.toString does not switch to
+// exponent notation. those are written here straight as ASCII digits, any
+// other number goes through Double.toString so the text is always the same.
+//
+// a number v with k decimal places is written as the integer m = v * 10^k
+// when m / 10^k gives v back, for the smallest such k. that is the shortest
+// text that reads back as v, which is what Double.toString writes. with at
+// most 15 significant digits only one m can pass the test for a given k.
+final class DoubleFormat {
+
+    // longest text of the fast path: a sign, 15 digits, a point and "0.00".
+    static final int MAX_LENGTH = 24;
+
+    private static final long MAX_DIGITS = 1_000_000_000_000_000L; // 10^15
+    private static final int MAX_PLACES = 15;
+
+    private static final double[] POWERS = new double[MAX_PLACES + 1];
+
+    static {
+        double power = 1;
+        for(int i = 0; i <= MAX_PLACES; i++){
+            POWERS[i] = power;
+            power *= 10;
+        }
+    }
+
+    private DoubleFormat(){}
+
+    static String toString(double value){
+        byte[] text = new byte[MAX_LENGTH];
+        int length = format(value, text, 0);
+        if(length < 0){
+            String fallback = Double.toString(value);
+            return fallback.endsWith(".0") ? fallback.substring(0, fallback.length() - 2) : fallback;
+        }
+        return new String(text, 0, length, StandardCharsets.ISO_8859_1);
+    }
+
+    // writes value as ASCII at offset and returns the length, or -1 if it is
+    // not a number the fast path writes. needs MAX_LENGTH bytes of room.
+    static int format(double value, byte[] into, int offset){
+        boolean negative = value < 0 || (value == 0 && 1 / value < 0);
+        double magnitude = Math.abs(value);
+
+        if(magnitude == 0){
+            return digits(0, 0, negative, into, offset);
+        }
+        // Double.toString uses exponent notation outside [10^-3, 10^7).
+        if(!(magnitude >= 1e-3 && magnitude < 1e7)) return -1;
+
+        for(int places = 0; places <= MAX_PLACES; places++){
+            double scaled = magnitude * POWERS[places];
+            if(scaled >= MAX_DIGITS) return -1;
+
+            double whole = Math.rint(scaled);
+            if(whole / POWERS[places] == magnitude){
+                return digits((long)whole, places, negative, into, offset);
+            }
+        }
+        return -1;
+    }
+
+    // writes number / 10^places, with at least one digit before the point.
+    private static int digits(long number, int places, boolean negative, byte[] into, int offset){
+        int length = 0;
+        long rest = number;
+        do{
+            length++;
+            rest /= 10;
+        }while(rest != 0);
+        if(length <= places) length = places + 1;   // leading "0."
+        if(places > 0) length++;                    // the point
+        if(negative) length++;
+
+        int end = offset + length;
+        int at = end;
+        for(int i = 0; i < places; i++){
+            into[--at] = (byte)('0' + number % 10);
+            number /= 10;
+        }
+        if(places > 0) into[--at] = '.';
+        do{
+            into[--at] = (byte)('0' + number % 10);
+            number /= 10;
+        }while(number != 0);
+        if(negative) into[--at] = '-';
+
+        return length;
+    }
+}
@@ -1,28 +1,35 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap; 
-import java.util.Map; 
-
 public class Environment {
-    private final Map<String, Object> values = new HashMap<String, Object>(); 
+    private final SymbolMap<Object> values = new SymbolMap<>(); 
     final Environment enclosing; 
+    // how many environments enclose this one. the field fits in the padding 
+    // after the two references, it makes objects no bigger. 
+    final int depth; 
 
     Environment(){
         enclosing = null; 
+        depth = 0; 
     }
 
     Environment(Environment enclosing){
         this.enclosing = enclosing; 
+        this.depth = enclosing.depth + 1; 
+        Metrics.environment(depth); 
     }
 
     public void define(String name, Object value){
-        values.put(name, value); 
+        define(Symbols.intern(name), value); 
+    }
+
+    public void define(int symbol, Object value){
+        values.put(symbol, value); 
     }
 
     public Object get(Token name){
 
-        if(values.containsKey(name.lexeme)){
-            return values.get(name.lexeme); 
+        if(values.containsKey(name.symbol)){
+            return values.get(name.symbol); 
         }
 
         if(enclosing !=null) return enclosing.get(name);
@@ -32,8 +39,8 @@ public class Environment {
 
     public void assign(Token name, Object expression){
 
-        if(values.containsKey(name.lexeme)){
-            values.put(name.lexeme, expression); 
+        if(values.containsKey(name.symbol)){
+            values.put(name.symbol, expression); 
             return; 
         }
 
@@ -47,8 +54,8 @@ public class Environment {
         throw new RuntimeError( name, "Undefined variable " + name.lexeme + "."); 
     }
 
-    public Object getAt(int distance, String name){
-        return ancestor(distance).values.get(name);
+    public Object getAt(int distance, int symbol){
+        return ancestor(distance).values.get(symbol);
     }
 
     private Environment ancestor(int distance){
@@ -62,6 +69,6 @@ public class Environment {
     }
 
     void assignAt(int distance, Token name, Object value){
-        ancestor(distance).values.put(name.lexeme, value);
+        ancestor(distance).values.put(name.symbol, value);
     }
 }
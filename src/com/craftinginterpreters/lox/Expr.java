@@ -3,6 +3,8 @@ package com.craftinginterpreters.lox;
 import java.util.List;
 
 abstract class Expr {
+	int depth = -1;
+
 	interface Visitor<R> {
 		R visitBinaryExpr(Binary expr);
 		R visitAssignmentExpr(Assignment expr);
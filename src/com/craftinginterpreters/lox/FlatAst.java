@@ -0,0 +1,147 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+
+// an arena encoding of a resolved program. every node is four ints in one
+// array: its kind and three operand slots holding child nodes, list offsets,
+// token or constant indices. a node id is its offset into that array.
+// lists of children are stored length first in a second int array.
+//
+//  kind          a               b                c
+//  BINARY        left            right            operator token
+//  LOGICAL       left            right            operator token
+//  ASSIGN        name token      value            depth
+//  GROUPING      expression      -                -
+//  LITERAL       constant        -                -
+//  UNARY         right           -                operator token
+//  CALL          callee          argument list    paren token
+//  SET           object          value            name token
+//  SUPER         method token    depth            keyword token
+//  THIS          keyword token   depth            -
+//  GET           object          -                name token
+//  VARIABLE      name token      depth            -
+//  BLOCK         statement list  -                -
+//  EXPRESSION    expression      -                -
+//  CLASS         name token      superclass|NONE  method list
+//  FUNCTION      name token      parameter list   body list
+//  IF            condition       then             else|NONE
+//  WHILE         condition       body             keyword token
+//  PRINT         expression      -                -
+//  VAR           name token      initializer|NONE -
+//  RETURN        keyword token   value|NONE       -
+//  PARALLEL_FOR  variable token  [start, end]     body
+//
+// depth is the resolved scope distance, -1 for a global.
+final class FlatAst {
+
+    static final int BINARY = 0;
+    static final int LOGICAL = 1;
+    static final int ASSIGN = 2;
+    static final int GROUPING = 3;
+    static final int LITERAL = 4;
+    static final int UNARY = 5;
+    static final int CALL = 6;
+    static final int SET = 7;
+    static final int SUPER = 8;
+    static final int THIS = 9;
+    static final int GET = 10;
+    static final int VARIABLE = 11;
+
+    static final int BLOCK = 12;
+    static final int EXPRESSION = 13;
+    static final int CLASS = 14;
+    static final int FUNCTION = 15;
+    static final int IF = 16;
+    static final int WHILE = 17;
+    static final int PRINT = 18;
+    static final int VAR = 19;
+    static final int RETURN = 20;
+    static final int PARALLEL_FOR = 21;
+
+    static final int NONE = -1;
+    static final int NODE_SIZE = 4;
+
+    int[] nodes = new int[256];
+    int nodeCount = 0;
+
+    int[] lists = new int[64];
+    int listCount = 0;
+
+    Object[] constants = new Object[16];
+    int constantCount = 0;
+
+    Token[] tokens = new Token[64];
+    int tokenCount = 0;
+
+    // list of the top level statements.
+    int root = NONE;
+
+    int kind(int node){ return nodes[node]; }
+    int a(int node){ return nodes[node + 1]; }
+    int b(int node){ return nodes[node + 2]; }
+    int c(int node){ return nodes[node + 3]; }
+
+    int length(int list){ return lists[list]; }
+    int item(int list, int index){ return lists[list + 1 + index]; }
+
+    Token token(int index){ return tokens[index]; }
+    Object constant(int index){ return constants[index]; }
+
+    int node(int kind){
+        if(nodeCount + NODE_SIZE > nodes.length){
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        int node = nodeCount;
+        nodes[node] = kind;
+        nodes[node + 1] = NONE;
+        nodes[node + 2] = NONE;
+        nodes[node + 3] = NONE;
+        nodeCount += NODE_SIZE;
+        return node;
+    }
+
+    void set(int node, int a, int b, int c){
+        nodes[node + 1] = a;
+        nodes[node + 2] = b;
+        nodes[node + 3] = c;
+    }
+
+    // reserves a list of the given length, the items are filled in with setItem.
+    int list(int length){
+        while(listCount + length + 1 > lists.length){
+            lists = Arrays.copyOf(lists, lists.length * 2);
+        }
+        int list = listCount;
+        lists[list] = length;
+        listCount += length + 1;
+        return list;
+    }
+
+    void setItem(int list, int index, int value){
+        lists[list + 1 + index] = value;
+    }
+
+    int addToken(Token token){
+        if(tokenCount == tokens.length){
+            tokens = Arrays.copyOf(tokens, tokens.length * 2);
+        }
+        tokens[tokenCount] = token;
+        return tokenCount++;
+    }
+
+    int addConstant(Object value){
+        if(constantCount == constants.length){
+            constants = Arrays.copyOf(constants, constants.length * 2);
+        }
+        constants[constantCount] = value;
+        return constantCount++;
+    }
+
+    // drops the spare capacity once the program is complete.
+    void trim(){
+        nodes = Arrays.copyOf(nodes, nodeCount);
+        lists = Arrays.copyOf(lists, listCount);
+        constants = Arrays.copyOf(constants, constantCount);
+        tokens = Arrays.copyOf(tokens, tokenCount);
+    }
+}
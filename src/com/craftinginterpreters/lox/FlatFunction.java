@@ -0,0 +1,66 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// a function declared in a FlatAst, its declaration is a FUNCTION node.
+class FlatFunction extends LoxFunction {
+
+    private final FlatAst ast;
+    private final int node;
+
+    FlatFunction(FlatAst ast, int node, Environment closure, boolean isInitializer){
+        super(null, closure, isInitializer);
+        this.ast = ast;
+        this.node = node;
+    }
+
+    @Override
+    LoxFunction bind(LoxInstance instance){
+        Environment environment = new Environment(closure);
+        environment.define(Symbols.THIS, instance);
+        Metrics.boundMethod();
+        return new FlatFunction(ast, node, environment, isInitializer);
+    }
+
+    @Override
+    Token name(){
+        return ast.token(ast.a(node));
+    }
+
+    @Override
+    public int aerity() {
+        return ast.length(ast.b(node));
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+
+        Environment environment = new Environment(closure);
+        int parameters = ast.b(node);
+        for(int i = 0; i < ast.length(parameters); i++){
+            environment.define(ast.token(ast.item(parameters, i)).symbol, arguments.get(i));
+        }
+
+        interpreter.enterCall(ast.token(ast.a(node)));
+        Profiler.Stack stack = interpreter.profile();
+        if (stack != null) stack.push(ast.token(ast.a(node)));
+        LoxEvents.FunctionCall event = new LoxEvents.FunctionCall();
+        event.begin();
+        try {
+            ((FlatInterpreter)interpreter).executeBody(ast, ast.c(node), environment);
+        }catch(Return returnValue){
+            if (isInitializer) return closure.getAt(0, Symbols.THIS);
+            return returnValue.value;
+        }finally{
+            interpreter.exitCall();
+            if (stack != null) stack.pop();
+            LoxEvents.commit(event, ast.token(ast.a(node)));
+        }
+        return null;
+    }
+
+    @Override
+    public String toString(){
+        return "< fn" + ast.token(ast.a(node)).lexeme + ">";
+    }
+}
@@ -0,0 +1,298 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.craftinginterpreters.lox.FlatAst.*;
+
+// executes a FlatAst directly, switching on node kinds instead of visiting
+// objects. it shares globals, natives and the operator semantics with the
+// tree walking interpreter it extends.
+class FlatInterpreter extends Interpreter {
+
+    // the program the running code belongs to, functions switch it on call.
+    private FlatAst ast;
+
+    FlatInterpreter(){
+    }
+
+    private FlatInterpreter(FlatInterpreter parent){
+        super(parent);
+    }
+
+    @Override
+    Interpreter fork(){
+        return new FlatInterpreter(this);
+    }
+
+    @Override
+    void interpret(List<Stmt> statements){
+        interpret(new Flattener().flatten(statements));
+    }
+
+    void interpret(FlatAst program){
+        FlatAst previous = ast;
+        try{
+            ast = program;
+            executeList(program.root);
+        }
+        catch (RuntimeError error){
+            output.flush();
+            lox.runtimeError(error);
+        }finally{
+            ast = previous;
+            output.flush();
+        }
+    }
+
+    void executeBody(FlatAst program, int body, Environment environment){
+        FlatAst previousAst = ast;
+        Environment previous = this.environment;
+
+        try{
+            ast = program;
+            this.environment = environment;
+            executeList(body);
+        }finally{
+            this.environment = previous;
+            ast = previousAst;
+        }
+    }
+
+    void executeIn(FlatAst program, int node, Environment environment){
+        FlatAst previousAst = ast;
+        Environment previous = this.environment;
+
+        try{
+            ast = program;
+            this.environment = environment;
+            execute(node);
+        }finally{
+            this.environment = previous;
+            ast = previousAst;
+        }
+    }
+
+    private void executeList(int list){
+        int length = ast.length(list);
+        for(int i = 0; i < length; i++){
+            execute(ast.item(list, i));
+        }
+    }
+
+    private void execute(int node){
+        switch (ast.kind(node)){
+            case BLOCK: {
+                Environment previous = environment;
+                try{
+                    environment = new Environment(previous);
+                    executeList(ast.a(node));
+                }finally{
+                    environment = previous;
+                }
+                break;
+            }
+
+            case EXPRESSION:
+                evaluate(ast.a(node));
+                break;
+
+            case PRINT:
+                print(evaluate(ast.a(node)));
+                break;
+
+            case VAR: {
+                Object value = null;
+                if(ast.b(node) != NONE){
+                    value = evaluate(ast.b(node));
+                }
+                environment.define(ast.token(ast.a(node)).symbol, value);
+                break;
+            }
+
+            case IF:
+                if(isTruthy(evaluate(ast.a(node)))){
+                    execute(ast.b(node));
+                }else if(ast.c(node) != NONE){
+                    execute(ast.c(node));
+                }
+                break;
+
+            case WHILE:
+                while(isTruthy(evaluate(ast.a(node)))){
+                    execute(ast.b(node));
+                    safepoint(ast.token(ast.c(node)));
+                }
+                break;
+
+            case FUNCTION: {
+                Token name = ast.token(ast.a(node));
+                environment.define(name.symbol, new FlatFunction(ast, node, environment, false));
+                break;
+            }
+
+            case RETURN: {
+                Object value = null;
+                if(ast.b(node) != NONE){
+                    value = evaluate(ast.b(node));
+                }
+                throw new Return(value);
+            }
+
+            case CLASS:
+                executeClass(node);
+                break;
+
+            case PARALLEL_FOR:
+                executeParallelFor(node);
+                break;
+
+            default:
+                throw new IllegalStateException("not a statement: " + ast.kind(node));
+        }
+    }
+
+    private void executeClass(int node){
+        Token name = ast.token(ast.a(node));
+        Object superclass = null;
+
+        if(ast.b(node) != NONE){
+            superclass = evaluate(ast.b(node));
+
+            if(!(superclass instanceof LoxClass)){
+                throw new RuntimeError(ast.token(ast.a(ast.b(node))),
+                        "Superclass must be a class");
+            }
+        }
+
+        environment.define(name.symbol, null);
+
+        if(superclass != null){
+            environment = new Environment(environment);
+            environment.define(Symbols.SUPER, superclass);
+        }
+
+        int methods = ast.c(node);
+        SymbolMap<LoxFunction> functions = new SymbolMap<>(ast.length(methods));
+        for(int i = 0; i < ast.length(methods); i++){
+            int method = ast.item(methods, i);
+            int symbol = ast.token(ast.a(method)).symbol;
+            functions.put(symbol, new FlatFunction(ast, method, environment,
+                    symbol == Symbols.INIT));
+        }
+
+        LoxClass klass = new LoxClass(name.lexeme, name.line, (LoxClass)superclass, functions);
+
+        if(superclass != null){
+            environment = environment.enclosing;
+        }
+        environment.assign(name, klass);
+    }
+
+    private void executeParallelFor(int node){
+        Token variable = ast.token(ast.a(node));
+        int range = ast.b(node);
+        Object start = evaluate(ast.item(range, 0));
+        Object end = evaluate(ast.item(range, 1));
+        checkNumberType(variable, start, end);
+
+        FlatAst program = ast;
+        Environment enclosing = environment;
+        int body = ast.c(node);
+
+        ParallelLoop.run(this, (double)start, (double)end, (worker, index) -> {
+            Environment iteration = new Environment(enclosing);
+            iteration.define(variable.symbol, index);
+            ((FlatInterpreter)worker).executeIn(program, body, iteration);
+        });
+    }
+
+    private Object evaluate(int node){
+        switch (ast.kind(node)){
+            case LITERAL:
+                return ast.constant(ast.a(node));
+
+            case GROUPING:
+                return evaluate(ast.a(node));
+
+            case VARIABLE:
+            case THIS:
+                return lookUp(ast.token(ast.a(node)), ast.b(node));
+
+            case BINARY: {
+                Object left = evaluate(ast.a(node));
+                Object right = evaluate(ast.b(node));
+                return binary(ast.token(ast.c(node)), left, right);
+            }
+
+            case LOGICAL: {
+                Object left = evaluate(ast.a(node));
+
+                if(ast.token(ast.c(node)).type == TokenType.OR){
+                    if(isTruthy(left)) return left;
+                }else{
+                    if(!isTruthy(left)) return left;
+                }
+                return evaluate(ast.b(node));
+            }
+
+            case UNARY:
+                return unary(ast.token(ast.c(node)), evaluate(ast.a(node)));
+
+            case ASSIGN: {
+                Token name = ast.token(ast.a(node));
+                Object value = evaluate(ast.b(node));
+                int depth = ast.c(node);
+
+                if(depth != NONE){
+                    environment.assignAt(depth, name, value);
+                }else{
+                    globals.assign(name, value);
+                }
+                return value;
+            }
+
+            case CALL: {
+                Object callee = evaluate(ast.a(node));
+
+                int list = ast.b(node);
+                int length = ast.length(list);
+                List<Object> arguments = new ArrayList<>(length);
+                for(int i = 0; i < length; i++){
+                    arguments.add(evaluate(ast.item(list, i)));
+                }
+
+                return call(callee, arguments, ast.token(ast.c(node)));
+            }
+
+            case GET:
+                return getProperty(evaluate(ast.a(node)), ast.token(ast.c(node)));
+
+            case SET: {
+                Token name = ast.token(ast.c(node));
+                Object object = evaluate(ast.a(node));
+
+                if(!(object instanceof LoxInstance)){
+                    throw new RuntimeError(name, "Only instances have fields");
+                }
+
+                Object value = evaluate(ast.b(node));
+                ((LoxInstance)object).set(name, value);
+                return null;
+            }
+
+            case SUPER:
+                return superMethod(ast.b(node), ast.token(ast.a(node)));
+
+            default:
+                throw new IllegalStateException("not an expression: " + ast.kind(node));
+        }
+    }
+
+    private Object lookUp(Token name, int depth){
+        if(depth != NONE){
+            return environment.getAt(depth, name.symbol);
+        }
+        return globals.get(name);
+    }
+}
@@ -0,0 +1,222 @@
+package com.craftinginterpreters.lox;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// lowers a parsed and resolved program into a FlatAst. nodes are laid out in
+// pre-order, a parent is reserved before its children are visited so a walk
+// of the program moves forward through the node array.
+class Flattener implements Expr.Visitor<Integer>, Stmt.Visitor<Integer> {
+
+    private final FlatAst ast = new FlatAst();
+    private final Map<Object, Integer> constants = new HashMap<>();
+    private int nil = FlatAst.NONE;
+
+    FlatAst flatten(List<Stmt> statements){
+        ast.root = statements(statements);
+        ast.trim();
+        return ast;
+    }
+
+    private int statements(List<? extends Stmt> statements){
+        int list = ast.list(statements.size());
+        for(int i = 0; i < statements.size(); i++){
+            ast.setItem(list, i, flatten(statements.get(i)));
+        }
+        return list;
+    }
+
+    private int flatten(Stmt stmt){
+        return stmt == null ? FlatAst.NONE : stmt.accept(this);
+    }
+
+    private int flatten(Expr expr){
+        return expr == null ? FlatAst.NONE : expr.accept(this);
+    }
+
+    private int token(Token token){
+        return ast.addToken(token);
+    }
+
+    private int constant(Object value){
+        if(value == null){
+            if(nil == FlatAst.NONE) nil = ast.addConstant(null);
+            return nil;
+        }
+        return constants.computeIfAbsent(value, ast::addConstant);
+    }
+
+    @Override
+    public Integer visitBinaryExpr(Expr.Binary expr) {
+        int node = ast.node(FlatAst.BINARY);
+        ast.set(node, flatten(expr.left), flatten(expr.right), token(expr.operator));
+        return node;
+    }
+
+    @Override
+    public Integer visitAssignmentExpr(Expr.Assignment expr) {
+        int node = ast.node(FlatAst.ASSIGN);
+        ast.set(node, token(expr.name), flatten(expr.value), expr.depth);
+        return node;
+    }
+
+    @Override
+    public Integer visitlogicalExpr(Expr.logical expr) {
+        int node = ast.node(FlatAst.LOGICAL);
+        ast.set(node, flatten(expr.left), flatten(expr.right), token(expr.operator));
+        return node;
+    }
+
+    @Override
+    public Integer visitGroupingExpr(Expr.Grouping expr) {
+        int node = ast.node(FlatAst.GROUPING);
+        ast.set(node, flatten(expr.expression), FlatAst.NONE, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitLiteralExpr(Expr.Literal expr) {
+        int node = ast.node(FlatAst.LITERAL);
+        ast.set(node, constant(expr.value), FlatAst.NONE, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitUnaryExpr(Expr.Unary expr) {
+        int node = ast.node(FlatAst.UNARY);
+        ast.set(node, flatten(expr.right), FlatAst.NONE, token(expr.operator));
+        return node;
+    }
+
+    @Override
+    public Integer visitCallExpr(Expr.Call expr) {
+        int node = ast.node(FlatAst.CALL);
+        int callee = flatten(expr.callee);
+
+        int arguments = ast.list(expr.arguments.size());
+        for(int i = 0; i < expr.arguments.size(); i++){
+            ast.setItem(arguments, i, flatten(expr.arguments.get(i)));
+        }
+
+        ast.set(node, callee, arguments, token(expr.paren));
+        return node;
+    }
+
+    @Override
+    public Integer visitSetExpr(Expr.Set expr) {
+        int node = ast.node(FlatAst.SET);
+        ast.set(node, flatten(expr.object), flatten(expr.value), token(expr.name));
+        return node;
+    }
+
+    @Override
+    public Integer visitSuperExpr(Expr.Super expr) {
+        int node = ast.node(FlatAst.SUPER);
+        ast.set(node, token(expr.method), expr.depth, token(expr.keyword));
+        return node;
+    }
+
+    @Override
+    public Integer visitThisExpr(Expr.This expr) {
+        int node = ast.node(FlatAst.THIS);
+        ast.set(node, token(expr.keyword), expr.depth, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitGetExpr(Expr.Get expr) {
+        int node = ast.node(FlatAst.GET);
+        ast.set(node, flatten(expr.object), FlatAst.NONE, token(expr.name));
+        return node;
+    }
+
+    @Override
+    public Integer visitVarExpr(Expr.Var expr) {
+        int node = ast.node(FlatAst.VARIABLE);
+        ast.set(node, token(expr.name), expr.depth, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitBlockStmt(Stmt.Block stmt) {
+        int node = ast.node(FlatAst.BLOCK);
+        ast.set(node, statements(stmt.statements), FlatAst.NONE, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitExpressionStmt(Stmt.Expression stmt) {
+        int node = ast.node(FlatAst.EXPRESSION);
+        ast.set(node, flatten(stmt.expression), FlatAst.NONE, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitClassStmt(Stmt.Class stmt) {
+        int node = ast.node(FlatAst.CLASS);
+        ast.set(node, token(stmt.name), flatten(stmt.superClass), statements(stmt.methods));
+        return node;
+    }
+
+    @Override
+    public Integer visitFuncStmt(Stmt.Func stmt) {
+        int node = ast.node(FlatAst.FUNCTION);
+
+        int parameters = ast.list(stmt.arguments.size());
+        for(int i = 0; i < stmt.arguments.size(); i++){
+            ast.setItem(parameters, i, token(stmt.arguments.get(i)));
+        }
+
+        ast.set(node, token(stmt.name), parameters, statements(stmt.body));
+        return node;
+    }
+
+    @Override
+    public Integer visitIfStmt(Stmt.If stmt) {
+        int node = ast.node(FlatAst.IF);
+        ast.set(node, flatten(stmt.condition), flatten(stmt.ThenStatement),
+                flatten(stmt.ElseStatement));
+        return node;
+    }
+
+    @Override
+    public Integer visitWhileStmt(Stmt.While stmt) {
+        int node = ast.node(FlatAst.WHILE);
+        ast.set(node, flatten(stmt.condition), flatten(stmt.WhileStatement), token(stmt.keyword));
+        return node;
+    }
+
+    @Override
+    public Integer visitParallelForStmt(Stmt.ParallelFor stmt) {
+        int node = ast.node(FlatAst.PARALLEL_FOR);
+
+        int range = ast.list(2);
+        ast.setItem(range, 0, flatten(stmt.start));
+        ast.setItem(range, 1, flatten(stmt.end));
+
+        ast.set(node, token(stmt.variable), range, flatten(stmt.body));
+        return node;
+    }
+
+    @Override
+    public Integer visitPrintStmt(Stmt.Print stmt) {
+        int node = ast.node(FlatAst.PRINT);
+        ast.set(node, flatten(stmt.expression), FlatAst.NONE, FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitVarStmt(Stmt.Var stmt) {
+        int node = ast.node(FlatAst.VAR);
+        ast.set(node, token(stmt.name), flatten(stmt.Initializer), FlatAst.NONE);
+        return node;
+    }
+
+    @Override
+    public Integer visitReturnStmt(Stmt.Return stmt) {
+        int node = ast.node(FlatAst.RETURN);
+        ast.set(node, token(stmt.keyword), flatten(stmt.value), FlatAst.NONE);
+        return node;
+    }
+}
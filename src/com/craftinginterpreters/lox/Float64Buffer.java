@@ -0,0 +1,209 @@
+package com.craftinginterpreters.lox;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Deque;
+
+// a fixed length buffer of doubles kept off the java heap, with bulk
+// operations that run as one java loop over the whole buffer instead of a
+// visitor call and a boxed Double per element. the loops are plain indexed
+// loops over a direct buffer in native order, the form the JIT unrolls and
+// vectorizes on its own. sum and dot keep four partial sums so the additions
+// are not one long dependent chain; like a vector reduction, that can round
+// differently from adding the elements left to right.
+class Float64Buffer extends NativeObject implements Freezable {
+
+    private static final SymbolMap<Method> methods = new SymbolMap<>();
+
+    static {
+        define(methods, "length", 0, (self, arguments) -> (double)((Float64Buffer)self).length);
+        define(methods, "get", 1, (self, arguments) -> {
+            Float64Buffer buffer = (Float64Buffer)self;
+            return buffer.data.get(buffer.index(arguments.get(0)));
+        });
+        define(methods, "set", 2, (self, arguments) -> {
+            Float64Buffer buffer = (Float64Buffer)self;
+            buffer.checkWritable();
+            buffer.data.put(buffer.index(arguments.get(0)), number(arguments.get(1)));
+            return null;
+        });
+        define(methods, "add", 1, (self, arguments) -> {
+            ((Float64Buffer)self).add(operand(self, arguments.get(0)));
+            return null;
+        });
+        define(methods, "mul", 1, (self, arguments) -> {
+            ((Float64Buffer)self).mul(operand(self, arguments.get(0)));
+            return null;
+        });
+        define(methods, "copy", 1, (self, arguments) -> {
+            ((Float64Buffer)self).copy(operand(self, arguments.get(0)));
+            return null;
+        });
+        define(methods, "scale", 1, (self, arguments) -> {
+            ((Float64Buffer)self).scale(number(arguments.get(0)));
+            return null;
+        });
+        define(methods, "fill", 1, (self, arguments) -> {
+            ((Float64Buffer)self).fill(number(arguments.get(0)));
+            return null;
+        });
+        define(methods, "dot", 1, (self, arguments) -> ((Float64Buffer)self).dot(operand(self, arguments.get(0))));
+        define(methods, "sum", 0, (self, arguments) -> ((Float64Buffer)self).sum());
+    }
+
+    private final DoubleBuffer data;
+    private final int length;
+    private boolean frozen = false;
+
+    Float64Buffer(int length){
+        if(length > Integer.MAX_VALUE / Double.BYTES){
+            throw new RuntimeError(null, "Buffer length " + length + " is too large.");
+        }
+        this.length = length;
+        this.data = ByteBuffer.allocateDirect(length * Double.BYTES)
+                .order(ByteOrder.nativeOrder())
+                .asDoubleBuffer();
+    }
+
+    @Override
+    SymbolMap<Method> methods(){
+        return methods;
+    }
+
+    int length(){
+        return length;
+    }
+
+    double get(int index){
+        return data.get(index);
+    }
+
+    void set(int index, double value){
+        checkWritable();
+        data.put(index, value);
+    }
+
+    // this[i] += other[i]
+    void add(Float64Buffer other){
+        checkWritable();
+        DoubleBuffer a = data, b = other.data;
+        for(int i = 0; i < length; i++){
+            a.put(i, a.get(i) + b.get(i));
+        }
+    }
+
+    // this[i] *= other[i]
+    void mul(Float64Buffer other){
+        checkWritable();
+        DoubleBuffer a = data, b = other.data;
+        for(int i = 0; i < length; i++){
+            a.put(i, a.get(i) * b.get(i));
+        }
+    }
+
+    // this[i] = other[i]
+    void copy(Float64Buffer other){
+        checkWritable();
+        data.put(0, other.data, 0, length);
+    }
+
+    void scale(double factor){
+        checkWritable();
+        DoubleBuffer a = data;
+        for(int i = 0; i < length; i++){
+            a.put(i, a.get(i) * factor);
+        }
+    }
+
+    void fill(double value){
+        checkWritable();
+        DoubleBuffer a = data;
+        for(int i = 0; i < length; i++){
+            a.put(i, value);
+        }
+    }
+
+    double dot(Float64Buffer other){
+        DoubleBuffer a = data, b = other.data;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + 3 < length; i += 4){
+            s0 += a.get(i) * b.get(i);
+            s1 += a.get(i + 1) * b.get(i + 1);
+            s2 += a.get(i + 2) * b.get(i + 2);
+            s3 += a.get(i + 3) * b.get(i + 3);
+        }
+        for(; i < length; i++){
+            s0 += a.get(i) * b.get(i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    double sum(){
+        DoubleBuffer a = data;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for(; i + 3 < length; i += 4){
+            s0 += a.get(i);
+            s1 += a.get(i + 1);
+            s2 += a.get(i + 2);
+            s3 += a.get(i + 3);
+        }
+        for(; i < length; i++){
+            s0 += a.get(i);
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    // the argument of an element wise operation, a buffer of the same length.
+    private static Float64Buffer operand(NativeObject self, Object value){
+        if(!(value instanceof Float64Buffer)){
+            throw new RuntimeError(null, "Operand must be a float64 buffer.");
+        }
+
+        Float64Buffer other = (Float64Buffer)value;
+        int length = ((Float64Buffer)self).length;
+        if(other.length != length){
+            throw new RuntimeError(null, "Buffer lengths differ: " + length + " and " + other.length + ".");
+        }
+        return other;
+    }
+
+    private static double number(Object value){
+        if(!(value instanceof Double)) throw new RuntimeError(null, "Operand must be a number.");
+        return (double)value;
+    }
+
+    private int index(Object value){
+        if(!(value instanceof Double)){
+            throw new RuntimeError(null, "Buffer index must be a number.");
+        }
+
+        double index = (double)value;
+        if(index != Math.floor(index) || index < 0 || index >= length){
+            throw new RuntimeError(null, "Buffer index " + Interpreter.Stringify(value) +
+                    " is out of bounds for length " + length + ".");
+        }
+        return (int)index;
+    }
+
+    private void checkWritable(){
+        if(frozen) throw new RuntimeError(null, "Can't modify a frozen buffer.");
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    @Override
+    public void freeze(Deque<Object> reachable){
+        frozen = true;
+    }
+
+    @Override
+    public String toString(){
+        return "<float64 buffer " + length + ">";
+    }
+}
@@ -0,0 +1,14 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Deque;
+
+// a value freeze() can make deeply immutable. a frozen object is never
+// written again, so any thread may read it without locking, and unfrozen
+// objects keep their plain unsynchronized accesses.
+interface Freezable {
+
+    boolean isFrozen();
+
+    // marks this object frozen and queues the values it refers to.
+    void freeze(Deque<Object> reachable);
+}
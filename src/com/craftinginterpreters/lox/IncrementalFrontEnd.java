@@ -0,0 +1,176 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// keeps the top level declarations of the last version of a script, with
+// their tokens and resolved statements. a new version is cut into top level
+// declarations by a light pass over the text, and only declarations whose
+// text is new are scanned, parsed and resolved again.
+// top level code resolves with no enclosing scopes, so a declaration resolves
+// the same wherever it sits in the file. one that only moved keeps its AST and
+// has its tokens shifted to the new line.
+class IncrementalFrontEnd {
+
+    private static class Declaration {
+        final List<Token> tokens;
+        final List<Stmt> statements;
+        int line;
+
+        Declaration(List<Token> tokens, List<Stmt> statements, int line){
+            this.tokens = tokens;
+            this.statements = statements;
+            this.line = line;
+        }
+
+        void moveTo(int line){
+            int delta = line - this.line;
+            if(delta == 0) return;
+
+            for(Token token: tokens){
+                token.line += delta;
+            }
+            this.line = line;
+        }
+    }
+
+    private Map<String, Declaration> previous = new HashMap<>();
+
+    // what the last update did.
+    int declarations = 0;
+    int reparsed = 0;
+
+    // the statements of the new version of the script. errors are reported
+    // through lox as usual and leave lox.hadError set.
+    List<Stmt> update(String source){
+        Map<String, Declaration> current = new HashMap<>();
+        List<Stmt> program = new ArrayList<>();
+        boolean failed = false;
+
+        declarations = 0;
+        reparsed = 0;
+
+        int line = 1;
+        for(int start = 0; start < source.length();){
+            int end = endOfDeclaration(source, start);
+            String text = source.substring(start, end);
+
+            // whitespace and comments after the last declaration are not one.
+            if(skipBlank(text, 0) == text.length()){
+                line += newlines(text);
+                start = end;
+                continue;
+            }
+
+            // each cached declaration is reused once, a repeated text is parsed again.
+            Declaration declaration = previous.remove(text);
+            boolean valid = true;
+            if(declaration != null){
+                declaration.moveTo(line);
+            }else{
+                lox.hadError = false;
+                declaration = parse(text, line);
+                reparsed++;
+                valid = !lox.hadError;
+                failed |= lox.hadError;
+            }
+
+            // declarations with errors are not kept so they are reported again.
+            if(valid) current.put(text, declaration);
+            program.addAll(declaration.statements);
+            declarations++;
+
+            line += newlines(text);
+            start = end;
+        }
+
+        previous = current;
+        lox.hadError = failed;
+        return program;
+    }
+
+    private Declaration parse(String text, int line){
+        List<Token> tokens = new Scanner(text, line).scanTokens();
+        List<Stmt> statements = new Parser(tokens).parse();
+
+        if(!lox.hadError){
+            new Resolver().resolve(statements);
+        }
+        return new Declaration(tokens, statements, line);
+    }
+
+    // the index just past the top level declaration that starts at start: its
+    // closing ';', or the '}' that closes its outermost brace unless an else
+    // follows. strings and comments are skipped, everything else is left to
+    // the parser.
+    static int endOfDeclaration(String source, int start){
+        int depth = 0;
+        int i = start;
+
+        while(i < source.length()){
+            char c = source.charAt(i++);
+
+            switch (c){
+                case '"':
+                    while(i < source.length() && source.charAt(i) != '"') i++;
+                    i = Math.min(i + 1, source.length());
+                    break;
+                case '/':
+                    if(i < source.length() && source.charAt(i) == '/'){
+                        while(i < source.length() && source.charAt(i) != '\n') i++;
+                    }
+                    break;
+                case '(':
+                case '{':
+                    depth++;
+                    break;
+                case ')':
+                    depth = Math.max(0, depth - 1);
+                    break;
+                case '}':
+                    depth = Math.max(0, depth - 1);
+                    if(depth == 0 && !followedByElse(source, i)) return i;
+                    break;
+                case ';':
+                    if(depth == 0) return i;
+                    break;
+            }
+        }
+        return source.length();
+    }
+
+    private static boolean followedByElse(String source, int i){
+        i = skipBlank(source, i);
+        if(!source.startsWith("else", i)) return false;
+
+        int after = i + 4;
+        return after >= source.length() ||
+                !(Character.isLetterOrDigit(source.charAt(after)) || source.charAt(after) == '_');
+    }
+
+    // the index of the first character from i on that is not whitespace or
+    // part of a comment.
+    private static int skipBlank(String source, int i){
+        while(i < source.length()){
+            char c = source.charAt(i);
+            if(c == '/' && i + 1 < source.length() && source.charAt(i + 1) == '/'){
+                while(i < source.length() && source.charAt(i) != '\n') i++;
+            }else if(Character.isWhitespace(c)){
+                i++;
+            }else{
+                break;
+            }
+        }
+        return i;
+    }
+
+    private static int newlines(String text){
+        int count = 0;
+        for(int i = 0; i < text.length(); i++){
+            if(text.charAt(i) == '\n') count++;
+        }
+        return count;
+    }
+}
@@ -1,20 +1,34 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Map;
+import java.util.Collections;
 
 import com.craftinginterpreters.lox.Expr.*;
 import com.craftinginterpreters.lox.Stmt.*;
 
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
-    final Environment globals = new Environment();
-    private Environment environment = globals;
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    final Environment globals;
+    Environment environment;
+    Output output = Output.standard;
+
+    // the limits of the current run, shared with forks, and this thread's
+    // allowance of them; see Limits. 
+    Limits.Budget budget = Limits.NONE.start();
+    private int maxDepth = Integer.MAX_VALUE;
+    private int steps = 0;
+    private int instances = 0;
+    private int depth = 0;
+    // set while the run is on a Scheduler, it may give up its slot at safepoints. 
+    Scheduler.Turn turn = null;
+    // this thread's shadow stack while --profile is on, looked up on first use. 
+    private Profiler.Stack profile = null;
 
     Interpreter(){
+        globals = new Environment();
+        environment = globals;
+
         globals.define("clock", new LoxCallable(){
             @Override
             public int aerity() {
@@ -28,6 +42,77 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
             public String toString(){return "<native fn>"; }
         });
+
+        globals.define("array", new NativeFunction(0, (interpreter, arguments) -> new LoxArray()));
+        globals.define("map", new NativeFunction(0, (interpreter, arguments) -> new LoxMap()));
+        globals.define("float64", new NativeFunction(1, (interpreter, arguments) -> new Float64Buffer(
+                NativeFunction.count(arguments, 0, "float64 expects a length"))));
+        globals.define("mmap", new NativeFunction(1, (interpreter, arguments) -> MappedFile.open(
+                NativeFunction.argument(arguments, 0, String.class, "mmap expects a path"))));
+
+        Concurrency.define(globals);
+        ParallelArrays.define(globals);
+    }
+
+    // a separate execution state over the same globals, for code that runs
+    // on another thread. 
+    Interpreter(Interpreter parent){
+        globals = parent.globals;
+        environment = globals;
+        output = parent.output;
+        budget = parent.budget;
+        maxDepth = parent.maxDepth;
+    }
+
+    Interpreter fork(){
+        return new Interpreter(this);
+    }
+
+    // holds the next runs to limits, from now on. 
+    void limit(Limits limits){
+        budget = limits.start();
+        maxDepth = limits.callDepth;
+        steps = 0;
+        instances = 0;
+    }
+
+    // a loop back edge or a call, where a run can be stopped or yield. 
+    final void safepoint(Token at){
+        if(--steps < 0) refill(at);
+    }
+
+    private void refill(Token at){
+        steps = budget.takeSteps(at) - 1;
+        if(turn != null) turn.safepoint();
+    }
+
+    // a call into a Lox function, paired with exitCall once it has entered. 
+    final void enterCall(Token name){
+        safepoint(name);
+        if(depth == maxDepth){
+            throw new LimitError(name, LimitError.Kind.CALL_DEPTH, "Call depth limit of " + maxDepth + " exceeded.");
+        }
+        depth++;
+    }
+
+    final void exitCall(){
+        depth--;
+    }
+
+    // the stack --profile samples, null when not profiling. 
+    final Profiler.Stack profile(){
+        Profiler.Stack stack = profile;
+        return stack != null || Profiler.active == null ? stack : lookUpProfile();
+    }
+
+    // out of line, so the thread local lookup does not count against 
+    // inlining the call path. 
+    private Profiler.Stack lookUpProfile(){
+        return profile = Profiler.active.stack();
+    }
+
+    final void instantiate(LoxClass klass){
+        if(--instances < 0) instances = budget.takeInstances(klass) - 1;
     }
 
     void interpret(List<Stmt> statements){
@@ -37,28 +122,23 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         }
         catch (RuntimeError error){
+            output.flush();
             lox.runtimeError(error); 
         }
+        finally{
+            output.flush();
+        }
     }
 
-    private void execute(Stmt stmt){
+    void execute(Stmt stmt){
         stmt.accept(this); 
     }
 
-    public void resolve(Expr expr, int depth){
-        locals.put(expr, depth);
-    }
-
-    private String Stringify(Object object){
+    static String Stringify(Object object){
         if( object == null) return "nil"; 
 
         if(object instanceof Double){
-            String text = object.toString(); 
-
-            if(text.endsWith(".0")){
-                text = text.substring(0, text.length() - 2); 
-            }
-            return text; 
+            return DoubleFormat.toString((double)object); 
         }
         return object.toString();
     }
@@ -67,56 +147,73 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
         Object left = evaluate(expr.left); 
         Object right = evaluate(expr.right);
+
+        return binary(expr.operator, left, right); 
+    }
+
+    // the operators work on evaluated operands so the flat interpreter can share them. 
+    Object binary(Token operator, Object left, Object right){
         
-        switch (expr.operator.type){
+        switch (operator.type){
 
             case MINUS:
-                checkNumberType(expr.operator, left, right);
+                checkNumberType(operator, left, right);
 
-                return (double)left - (double)right; 
+                return Metrics.number((double)left - (double)right); 
             
             case SLASH:
-                checkNumberType(expr.operator, left, right);
-                return (double)left / (double) right; 
+                checkNumberType(operator, left, right);
+                return Metrics.number((double)left / (double) right); 
             
             case STAR: 
-                checkNumberType(expr.operator, left, right);
-                return (double)left * (double)right; 
+                checkNumberType(operator, left, right);
+                return Metrics.number((double)left * (double)right); 
 
             case PLUS: 
-                if (left instanceof String && right instanceof String){
-                    return (String)left + (String)right; 
+                if (Rope.isString(left) && Rope.isString(right)){
+                    return Rope.concat(left, right); 
                 }
                 if (left instanceof Double && right instanceof Double){
-                    return (double)left + (double)right; 
+                    return Metrics.number((double)left + (double)right); 
                 }
-                throw new RuntimeError(expr.operator, "Operands must be two numbers or two Strings"); 
+                throw new RuntimeError(operator, "Operands must be two numbers or two Strings"); 
 
             case BANG_EQUAL: 
-                return !isEqual((double)left, (double)right); 
+                return !isEqual(left, right); 
             case EQUAL_EQUAL: 
-                return isEqual((double)left, (double)right);
+                return isEqual(left, right);
             case LESS: 
-                checkNumberType(expr.operator, left, right);
+                checkNumberType(operator, left, right);
                 return (double)left < (double)right;
             case GREATER: 
-                checkNumberType(expr.operator, left, right);
+                checkNumberType(operator, left, right);
                 return (double)left > (double)right;
             case LESS_EQUAL: 
-                checkNumberType(expr.operator, left, right);
+                checkNumberType(operator, left, right);
                 return (double)left <= (double)right;
             case GREATER_EQUAL: 
-                checkNumberType(expr.operator, left, right);
+                checkNumberType(operator, left, right);
                 return (double)left >= (double)right; 
         }
         return right;
     }
 
-    private boolean isEqual(Object left, Object right){
-        if(left == null && right == null) return true; 
-        if(left == null) return false; 
+    // values of different types are never equal. the identity test settles
+    // nil, instances, functions, booleans (always the two cached objects) and
+    // strings from literals, which the scanner interns. numbers compare like
+    // Double.equals, so NaN equals itself and -0 is not 0.
+    boolean isEqual(Object left, Object right){
+        if(left == right) return true; 
+        if(left == null || right == null) return false; 
 
-        return left.equals(right); 
+        if(left instanceof Double){
+            return right instanceof Double &&
+                    Double.doubleToLongBits((double)left) == Double.doubleToLongBits((double)right); 
+        }
+        if(Rope.isString(left)){
+            return Rope.isString(right) && Rope.flatten(left).equals(Rope.flatten(right)); 
+        }
+        return left instanceof Boolean && left.equals(right); 
     }
 
     @Override
@@ -137,10 +234,14 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     public Object visitUnaryExpr(Unary expr) {
         Object right = evaluate(expr.right);
 
-        return switch (expr.operator.type) {
+        return unary(expr.operator, right); 
+    }
+
+    Object unary(Token operator, Object right){
+        return switch (operator.type) {
             case MINUS -> {
-                checkNumberType(expr.operator, right);
-                yield -(double) right;
+                checkNumberType(operator, right);
+                yield Metrics.number(-(double) right);
             }
             case BANG -> !isTruthy(right);
             default -> null;
@@ -157,19 +258,33 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             arguments.add(evaluate(argument));
         }
 
+        return call(callee, arguments, expr.paren); 
+    }
+
+    Object call(Object callee, List<Object> arguments, Token paren){
         if(!(callee instanceof LoxCallable)){
-            throw new RuntimeError(expr.paren,
+            throw new RuntimeError(paren,
                     "the expression is not callable");
         }
 
         LoxCallable function = (LoxCallable)callee;
 
         if(arguments.size() != function.aerity()){
-            throw new RuntimeError(expr.paren, "Expected" +
+            throw new RuntimeError(paren, "Expected" +
                     function.aerity() + " arguments but got" +
                     arguments.size() + "arguments instead");
         }
-        return function.call(this, arguments);
+
+        Profiler.Stack stack = profile();
+        if(stack != null) stack.at(paren);
+
+        try{
+            return function.call(this, arguments);
+        }catch (RuntimeError error){
+            // natives leave the token out, the error belongs to this call. 
+            if(error.token == null) throw new RuntimeError(paren, error.getMessage());
+            throw error;
+        }
     }
 
     @Override
@@ -187,16 +302,19 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
     @Override
     public Object visitSuperExpr(Super expr) {
-        int distance = locals.get(expr);
-        LoxClass superclass = (LoxClass)environment.getAt(distance, "super");
+        return superMethod(expr.depth, expr.method); 
+    }
+
+    Object superMethod(int distance, Token name){
+        LoxClass superclass = (LoxClass)environment.getAt(distance, Symbols.SUPER);
 
         LoxInstance object = (LoxInstance)environment.getAt(
-                distance -1, "this");
+                distance -1, Symbols.THIS);
 
-        LoxFunction method = superclass.findMethod(expr.method.lexeme);
+        LoxFunction method = superclass.findMethod(name.symbol);
 
         if(method == null){
-            throw new RuntimeError(expr.method, "undefined property" + expr.method.lexeme + ".");
+            throw new RuntimeError(name, "undefined property" + name.lexeme + ".");
         }
 
         return method.bind(object);
@@ -210,28 +328,36 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Object visitGetExpr(Get expr) {
         Object object = evaluate(expr.object);
+        return getProperty(object, expr.name); 
+    }
+
+    Object getProperty(Object object, Token name){
         if(object instanceof LoxInstance){
-            return ((LoxInstance) object).get(expr.name);
+            return ((LoxInstance) object).get(name);
         }
 
-        throw new RuntimeError(expr.name, "Only instances have properties");
+        if(object instanceof NativeObject){
+            return ((NativeObject) object).get(name);
+        }
+
+        throw new RuntimeError(name, "Only instances have properties");
     }
 
-    private void checkNumberType(Token operator, Object operand){
+    void checkNumberType(Token operator, Object operand){
 
         if(operand instanceof Double) return; 
 
         throw new RuntimeError(operator, "Operand must be a number");
     }
 
-    private void checkNumberType(Token operator, Object left, Object right){
+    void checkNumberType(Token operator, Object left, Object right){
 
         if(left instanceof Double && right instanceof Double) return; 
 
         throw new RuntimeError(operator, "operands must be numbers"); 
     }
 
-    private boolean isTruthy(Object expr){
+    boolean isTruthy(Object expr){
         if(expr == null) return false; 
         
         if(expr instanceof Boolean) return (boolean)expr;
@@ -259,21 +385,21 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         }
 
-        environment.define(stmt.name.lexeme, null);
+        environment.define(stmt.name.symbol, null);
 
         if(stmt.superClass != null){
             environment = new Environment(environment);
-            environment.define("super", superclass);
+            environment.define(Symbols.SUPER, superclass);
         }
 
-        Map<String, LoxFunction> methods = new HashMap<>();
+        SymbolMap<LoxFunction> methods = new SymbolMap<>(stmt.methods.size());
         for (Stmt.Func method: stmt.methods){
             LoxFunction function = new LoxFunction(method, environment,
-                    method.name.lexeme.equals("init"));
-            methods.put(method.name.lexeme, function);
+                    method.name.symbol == Symbols.INIT);
+            methods.put(method.name.symbol, function);
         }
 
-        LoxClass klass = new LoxClass(stmt.name.lexeme,
+        LoxClass klass = new LoxClass(stmt.name.lexeme, stmt.name.line,
                 (LoxClass)superclass, methods);
 
         if(superclass != null){
@@ -286,17 +412,26 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     @Override
     public Void visitFuncStmt(Func stmt) {
         LoxFunction function = new LoxFunction(stmt, environment, false);
-        environment.define(stmt.name.lexeme, function);
+        environment.define(stmt.name.symbol, function);
         return null;
     }
 
     @Override
     public Void visitPrintStmt(Print stmt) {
         Object value = evaluate(stmt.expression); 
-        System.out.println(Stringify(value));
+        print(value); 
         return null; 
     }
 
+    void print(Object value){
+        // numbers are written into the output buffer without making a string.
+        if(value instanceof Double){
+            output.println((double)value);
+            return;
+        }
+        output.println(Stringify(value));
+    }
+
     @Override
     public Void visitVarStmt(Stmt.Var stmt) {
 
@@ -306,7 +441,7 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             value = evaluate(stmt.Initializer); 
         }
 
-        environment.define(stmt.name.lexeme, value);
+        environment.define(stmt.name.symbol, value);
 
         return null;
     }
@@ -332,10 +467,8 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
         Object expression  = evaluate(expr.value); 
 
-        Integer distance = locals.get(expr);
-
-        if(distance != null){
-            environment.assignAt(distance, expr.name, expression);
+        if(expr.depth != -1){
+            environment.assignAt(expr.depth, expr.name, expression);
         }else{
             globals.assign(expr.name, expression);
         }
@@ -391,20 +524,37 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
         return null; 
     }
 
+    @Override
+    public Void visitParallelForStmt(ParallelFor stmt) {
+        Object start = evaluate(stmt.start);
+        Object end = evaluate(stmt.end);
+        checkNumberType(stmt.keyword, start, end);
+
+        Environment enclosing = environment;
+        List<Stmt> body = Collections.singletonList(stmt.body);
+
+        ParallelLoop.run(this, (double)start, (double)end, (worker, index) -> {
+            Environment iteration = new Environment(enclosing);
+            iteration.define(stmt.variable.symbol, index);
+            worker.executeBlock(body, iteration);
+        });
+        return null;
+    }
+
     @Override
     public Void visitWhileStmt(While stmt) {
 
         while(isTruthy(evaluate(stmt.condition))){
             execute(stmt.WhileStatement);
+            safepoint(stmt.keyword);
         }
 
         return null;
     }
 
     private Object lookUpVariable(Token name, Expr expression){
-        Integer distance = locals.get(expression);
-        if(distance != null){
-            return environment.getAt(distance, name.lexeme);
+        if(expression.depth != -1){
+            return environment.getAt(expression.depth, name.symbol);
         }else{
             return globals.get(name);
         }
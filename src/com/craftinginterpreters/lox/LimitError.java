@@ -0,0 +1,16 @@
+package com.craftinginterpreters.lox;
+
+// a run went over one of the Limits it was started with. it is a runtime
+// error, so it unwinds the Lox code and interpret reports it like any
+// other; java code calling into the interpreter can catch it by type.
+class LimitError extends RuntimeError {
+
+    enum Kind { STEPS, CALL_DEPTH, INSTANCES, TIME }
+
+    final Kind kind;
+
+    LimitError(Token token, Kind kind, String message){
+        super(token, message);
+        this.kind = kind;
+    }
+}
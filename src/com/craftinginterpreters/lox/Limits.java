@@ -0,0 +1,82 @@
+package com.craftinginterpreters.lox;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// what one run of a script may use: steps, call depth, instances and wall
+// time. a step is a loop iteration or a function call, the points where a
+// tree walker can always be stopped; straight line code between them is
+// bounded by the size of the script.
+//
+// checking has to stay cheap for scripts that never come near a limit. an
+// interpreter takes steps and instances from the shared Budget of its run
+// CHUNK at a time and counts them down in a plain field, so a step costs a
+// decrement and a branch. the budget, and the clock, are only consulted
+// when that allowance runs out. a limit can therefore be overrun by up to a
+// chunk per thread and a deadline by the time a chunk of steps takes.
+// native calls and blocking receives are not steps, a script waiting in one
+// is only stopped when it returns.
+final class Limits {
+
+    static final int CHUNK = 1024;
+
+    static final Limits NONE = new Limits(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    final long steps;
+    final int callDepth;
+    final long instances;
+    final long timeNanos;
+
+    Limits(long steps, int callDepth, long instances, long timeNanos){
+        this.steps = steps;
+        this.callDepth = callDepth;
+        this.instances = instances;
+        this.timeNanos = timeNanos;
+    }
+
+    // the budget of a run starting now.
+    Budget start(){
+        return new Budget(this);
+    }
+
+    // what is left of a run's limits, shared by every thread of the run.
+    static final class Budget {
+        final Limits limits;
+        private final AtomicLong steps;
+        private final AtomicLong instances;
+        private final long started = System.nanoTime();
+
+        private Budget(Limits limits){
+            this.limits = limits;
+            this.steps = new AtomicLong(limits.steps);
+            this.instances = new AtomicLong(limits.instances);
+        }
+
+        // the next allowance of steps, or a LimitError at the step that
+        // went over.
+        int takeSteps(Token at){
+            if(limits.timeNanos != Long.MAX_VALUE && System.nanoTime() - started > limits.timeNanos){
+                throw new LimitError(at, LimitError.Kind.TIME, "Time limit of "
+                        + TimeUnit.NANOSECONDS.toMillis(limits.timeNanos) + " ms exceeded.");
+            }
+            if(limits.steps == Long.MAX_VALUE) return CHUNK;
+
+            long left = steps.getAndAdd(-CHUNK);
+            if(left <= 0){
+                throw new LimitError(at, LimitError.Kind.STEPS, "Step limit of " + limits.steps + " exceeded.");
+            }
+            return (int)Math.min(CHUNK, left);
+        }
+
+        int takeInstances(LoxClass klass){
+            if(limits.instances == Long.MAX_VALUE) return CHUNK;
+
+            long left = instances.getAndAdd(-CHUNK);
+            if(left <= 0){
+                throw new LimitError(new Token(TokenType.IDENTIFIER, klass.name, null, klass.line),
+                        LimitError.Kind.INSTANCES, "Instance limit of " + limits.instances + " exceeded.");
+            }
+            return (int)Math.min(CHUNK, left);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.Deque;
+
+// the array type. while it holds only numbers the elements live unboxed in a
+// double[], the first value of any other type moves them to an Object[] for
+// good. both grow by doubling so push is amortized O(1).
+class LoxArray extends NativeObject implements Freezable {
+
+    private static final SymbolMap<Method> methods = new SymbolMap<>();
+
+    static {
+        define(methods, "push", 1, (self, arguments) -> {
+            ((LoxArray)self).push(arguments.get(0));
+            return null;
+        });
+        define(methods, "get", 1, (self, arguments) -> {
+            LoxArray array = (LoxArray)self;
+            return array.get(array.index(arguments.get(0)));
+        });
+        define(methods, "set", 2, (self, arguments) -> {
+            LoxArray array = (LoxArray)self;
+            array.set(array.index(arguments.get(0)), arguments.get(1));
+            return null;
+        });
+        define(methods, "length", 0, (self, arguments) -> (double)((LoxArray)self).size);
+    }
+
+    private double[] numbers = new double[8];
+    private Object[] values = null;
+    private int size = 0;
+    private boolean frozen = false;
+
+    @Override
+    SymbolMap<Method> methods(){
+        return methods;
+    }
+
+    int size(){
+        return size;
+    }
+
+    Object get(int index){
+        if(values == null) return numbers[index];
+        return values[index];
+    }
+
+    void set(int index, Object value){
+        checkWritable();
+
+        if(values == null){
+            if(value instanceof Double){
+                numbers[index] = (double)value;
+                return;
+            }
+            generalize();
+        }
+        values[index] = value;
+    }
+
+    void push(Object value){
+        checkWritable();
+
+        if(values == null && !(value instanceof Double)){
+            generalize();
+        }
+
+        if(values == null){
+            if(size == numbers.length) numbers = Arrays.copyOf(numbers, size * 2);
+            numbers[size++] = (double)value;
+        }else{
+            if(size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+
+    // the argument as an index into this array, or a runtime error.
+    int index(Object value){
+        if(!(value instanceof Double)){
+            throw new RuntimeError(null, "Array index must be a number.");
+        }
+
+        double index = (double)value;
+        if(index != Math.floor(index) || index < 0 || index >= size){
+            throw new RuntimeError(null, "Array index " + Interpreter.Stringify(value) +
+                    " is out of bounds for length " + size + ".");
+        }
+        return (int)index;
+    }
+
+    private void generalize(){
+        values = new Object[Math.max(8, numbers.length)];
+        for(int i = 0; i < size; i++){
+            values[i] = numbers[i];
+        }
+        numbers = null;
+    }
+
+    private void checkWritable(){
+        if(frozen) throw new RuntimeError(null, "Can't modify a frozen array.");
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    @Override
+    public void freeze(Deque<Object> reachable){
+        frozen = true;
+        if(values == null) return;
+
+        for(int i = 0; i < size; i++){
+            if(values[i] != null) reachable.add(values[i]);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return print("[...]", () -> {
+            StringBuilder text = new StringBuilder("[");
+            for(int i = 0; i < size; i++){
+                if(i > 0) text.append(", ");
+                text.append(Interpreter.Stringify(get(i)));
+            }
+            return text.append("]").toString();
+        });
+    }
+}
@@ -1,16 +1,17 @@
 package com.craftinginterpreters.lox;
 
 import java.util.List;
-import java.util.Map;
 
 public class LoxClass implements LoxCallable {
     final String name;
-    private final Map<String, LoxFunction> methods;
+    final int line;
+    private final SymbolMap<LoxFunction> methods;
     final LoxClass superclass;
 
-    LoxClass(String name, LoxClass superclass,  Map<String, LoxFunction> methods){
+    LoxClass(String name, int line, LoxClass superclass,  SymbolMap<LoxFunction> methods){
 
         this.name = name;
+        this.line = line;
         this.methods = methods;
         this.superclass = superclass;
     }
@@ -22,30 +23,41 @@ public class LoxClass implements LoxCallable {
 
     @Override
     public int aerity() {
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findMethod(Symbols.INIT);
         if (initializer == null) return 0;
         return initializer.aerity();
     }
 
     @Override
     public Object call(Interpreter interpreter, List<Object> arguments) {
+        LoxEvents.Instantiation event = new LoxEvents.Instantiation();
+        event.begin();
 
+        interpreter.instantiate(this);
         LoxInstance instance = new LoxInstance(this);
-        LoxFunction initializer = findMethod("init");
+        LoxFunction initializer = findMethod(Symbols.INIT);
         if(initializer != null){
             initializer.bind(instance).call(interpreter, arguments);
         }
+
+        event.end();
+        if(event.shouldCommit()){
+            event.className = name;
+            event.line = line;
+            event.commit();
+        }
         return instance;
     }
 
-    LoxFunction findMethod(String name){
+    LoxFunction findMethod(int symbol){
 
-        if(methods.containsKey(name)){
-            return methods.get(name);
+        LoxFunction method = methods.get(symbol);
+        if(method != null){
+            return method;
         }
 
         if(superclass != null){
-            return superclass.findMethod(name);
+            return superclass.findMethod(symbol);
         }
         return null;
     }
@@ -5,24 +5,31 @@ import java.util.List;
 public class LoxFunction implements LoxCallable{
 
     private final Stmt.Func declaration;
-    private final Environment closure;
+    final Environment closure;
 
-    private final boolean isInitializer;
+    final boolean isInitializer;
 
     LoxFunction(Stmt.Func declaration, Environment closure,
                 boolean isInitializer){
         this.declaration = declaration;
         this.closure = closure;
         this.isInitializer = isInitializer;
+        Metrics.function();
     }
 
     LoxFunction bind(LoxInstance instance){
         Environment environment = new Environment(closure);
-        environment.define("this", instance);
+        environment.define(Symbols.THIS, instance);
+        Metrics.boundMethod();
         return new LoxFunction(declaration, environment, isInitializer);
     }
 
 
+    // the name the function is declared with.
+    Token name(){
+        return declaration.name;
+    }
+
     @Override
     public int aerity() {
         return declaration.arguments.size();
@@ -33,14 +40,23 @@ public class LoxFunction implements LoxCallable{
 
         Environment environment = new Environment(closure);
         for(int i = 0; i < this.declaration.arguments.size(); i++){
-            environment.define(this.declaration.arguments.get(i).lexeme, arguments.get(i));
+            environment.define(this.declaration.arguments.get(i).symbol, arguments.get(i));
         }
 
+        interpreter.enterCall(declaration.name);
+        Profiler.Stack stack = interpreter.profile();
+        if (stack != null) stack.push(declaration.name);
+        LoxEvents.FunctionCall event = new LoxEvents.FunctionCall();
+        event.begin();
         try {
             interpreter.executeBlock(this.declaration.body, environment);
         }catch(Return returnValue){
-            if (isInitializer) return closure.getAt(0, "this");
+            if (isInitializer) return closure.getAt(0, Symbols.THIS);
             return returnValue.value;
+        }finally{
+            interpreter.exitCall();
+            if (stack != null) stack.pop();
+            LoxEvents.commit(event, declaration.name);
         }
         return null;
     }
@@ -1,15 +1,18 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Deque;
 
-public class LoxInstance {
+public class LoxInstance implements Freezable {
 
     private LoxClass klass;
-    private final Map<String, Object> fields = new HashMap<>();
+    private final SymbolMap<Object> fields = new SymbolMap<>();
+
+    // set once by freeze, before the instance is handed to other threads.
+    private boolean frozen = false;
 
     LoxInstance(LoxClass klass){
         this.klass = klass;
+        Metrics.instance();
     }
 
     @Override
@@ -18,19 +21,34 @@ public class LoxInstance {
     }
 
     Object get(Token name){
-        if(fields.containsKey((name.lexeme))){
-            return fields.get(name.lexeme);
+        if(fields.containsKey(name.symbol)){
+            return fields.get(name.symbol);
         }
 
-        LoxFunction method = klass.findMethod(name.lexeme);
+        LoxFunction method = klass.findMethod(name.symbol);
         if(method != null) return method.bind(this);
 
         throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
     }
 
     void set(Token name, Object value){
-        fields.put(name.lexeme, value);
+        if(frozen){
+            throw new RuntimeError(name, "Can't set '" + name.lexeme + "' on a frozen instance.");
+        }
+        fields.put(name.symbol, value);
     }
 
+    @Override
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    @Override
+    public void freeze(Deque<Object> reachable){
+        frozen = true;
+        fields.forEachValue(value -> {
+            if(value != null) reachable.add(value);
+        });
+    }
 
 }
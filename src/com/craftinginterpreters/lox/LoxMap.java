@@ -0,0 +1,289 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Deque;
+
+// the map type, open addressing with linear probing. a probe walks an int[]
+// of hashes, where 0 marks an empty slot, and only looks at the entry once
+// the whole hash matches. the entries are one Object[] with each key next to
+// its value, so a hit reads the hash, then the key and the value from the
+// same cache line. number keys are stored unboxed in a double[] and compared
+// by their bits, with a null key in the entry; strings and any other key
+// (booleans, instances, functions) are compared by identity first and by
+// equals, which is identity for everything but strings and booleans, after
+// that. removal shifts the rest of the probe run back instead of leaving
+// tombstones, so lookups never walk past dead slots.
+class LoxMap extends NativeObject implements Freezable {
+
+    private static final SymbolMap<Method> methods = new SymbolMap<>();
+
+    static {
+        define(methods, "put", 2, (self, arguments) -> {
+            ((LoxMap)self).put(key(arguments.get(0)), arguments.get(1));
+            return null;
+        });
+        define(methods, "get", 1, (self, arguments) -> ((LoxMap)self).get(key(arguments.get(0))));
+        define(methods, "has", 1, (self, arguments) -> ((LoxMap)self).containsKey(key(arguments.get(0))));
+        define(methods, "remove", 1, (self, arguments) -> ((LoxMap)self).remove(key(arguments.get(0))));
+        define(methods, "size", 0, (self, arguments) -> (double)((LoxMap)self).size);
+        define(methods, "keys", 0, (self, arguments) -> ((LoxMap)self).keys());
+        define(methods, "values", 0, (self, arguments) -> ((LoxMap)self).values());
+    }
+
+    private int[] hashes;
+    // key of slot i at 2i, its value at 2i + 1.
+    private Object[] entries;
+    // made by the first number key.
+    private double[] numberKeys;
+    private int size = 0;
+    private int mask;
+    private boolean frozen = false;
+
+    LoxMap(){
+        this(8);
+    }
+
+    LoxMap(int capacity){
+        allocate(Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1));
+    }
+
+    @Override
+    SymbolMap<Method> methods(){
+        return methods;
+    }
+
+    int size(){
+        return size;
+    }
+
+    // the number key paths. they never box the key.
+
+    Object get(double key){
+        int slot = slot(key);
+        return hashes[slot] == 0 ? null : entries[2 * slot + 1];
+    }
+
+    boolean containsKey(double key){
+        return hashes[slot(key)] != 0;
+    }
+
+    void put(double key, Object value){
+        checkWritable();
+
+        int slot = slot(key);
+        if(hashes[slot] == 0){
+            if(growIfFull()) slot = slot(key);
+            if(numberKeys == null) numberKeys = new double[hashes.length];
+            hashes[slot] = hash(key);
+            numberKeys[slot] = key;
+            size++;
+        }
+        entries[2 * slot + 1] = value;
+    }
+
+    // the paths for any key. numbers are passed on to the unboxed versions.
+
+    Object get(Object key){
+        if(key instanceof Double) return get((double)key);
+
+        int slot = slot(key);
+        return hashes[slot] == 0 ? null : entries[2 * slot + 1];
+    }
+
+    boolean containsKey(Object key){
+        if(key instanceof Double) return containsKey((double)key);
+        return hashes[slot(key)] != 0;
+    }
+
+    void put(Object key, Object value){
+        if(key instanceof Double){
+            put((double)key, value);
+            return;
+        }
+        checkWritable();
+
+        int slot = slot(key);
+        if(hashes[slot] == 0){
+            if(growIfFull()) slot = slot(key);
+            hashes[slot] = hash(key);
+            entries[2 * slot] = key;
+            size++;
+        }
+        entries[2 * slot + 1] = value;
+    }
+
+    // removes key and returns the value it had, or nil.
+    Object remove(Object key){
+        checkWritable();
+
+        int slot = key instanceof Double ? slot((double)key) : slot(key);
+        if(hashes[slot] == 0) return null;
+
+        Object value = entries[2 * slot + 1];
+        clear(slot);
+        size--;
+
+        // move every later entry of the probe run that could have used the
+        // freed slot back into it, so no run is broken by the removal.
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while(hashes[next] != 0){
+            int home = hashes[next] & mask;
+            if(((next - home) & mask) >= ((next - hole) & mask)){
+                hashes[hole] = hashes[next];
+                entries[2 * hole] = entries[2 * next];
+                entries[2 * hole + 1] = entries[2 * next + 1];
+                if(numberKeys != null) numberKeys[hole] = numberKeys[next];
+                clear(next);
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return value;
+    }
+
+    // the keys in table order. the order is unspecified and changes as the
+    // map grows.
+    LoxArray keys(){
+        LoxArray keys = new LoxArray();
+        for(int slot = 0; slot < hashes.length; slot++){
+            if(hashes[slot] != 0) keys.push(keyAt(slot));
+        }
+        return keys;
+    }
+
+    LoxArray values(){
+        LoxArray values = new LoxArray();
+        for(int slot = 0; slot < hashes.length; slot++){
+            if(hashes[slot] != 0) values.push(entries[2 * slot + 1]);
+        }
+        return values;
+    }
+
+    // a Lox value usable as a key, or a runtime error.
+    private static Object key(Object value){
+        if(value == null) throw new RuntimeError(null, "Map key can't be nil.");
+        return Rope.flatten(value);
+    }
+
+    // the slot holding key, or the empty slot that ends its probe run. an
+    // occupied slot with a null key holds a number.
+    private int slot(double key){
+        int hash = hash(key);
+        int slot = hash & mask;
+        for(int h; (h = hashes[slot]) != 0; slot = (slot + 1) & mask){
+            if(h == hash && entries[2 * slot] == null && sameNumber(numberKeys[slot], key)) return slot;
+        }
+        return slot;
+    }
+
+    private int slot(Object key){
+        int hash = hash(key);
+        int slot = hash & mask;
+        for(int h; (h = hashes[slot]) != 0; slot = (slot + 1) & mask){
+            if(h != hash) continue;
+            Object other = entries[2 * slot];
+            if(other == key || (other != null && other.equals(key))) return slot;
+        }
+        return slot;
+    }
+
+    private Object keyAt(int slot){
+        Object key = entries[2 * slot];
+        return key != null ? key : (Object)numberKeys[slot];
+    }
+
+    // keys match when Lox == says they are equal, that is like Double.equals:
+    // NaN finds itself again and -0 is a different key from 0.
+    private static boolean sameNumber(double a, double b){
+        return Double.doubleToLongBits(a) == Double.doubleToLongBits(b);
+    }
+
+    // hashes are never 0, that is an empty slot.
+    private static int hash(double key){
+        long bits = Double.doubleToLongBits(key);
+        bits = (bits ^ (bits >>> 32)) * 0x9E3779B97F4A7C15L;
+        int h = (int)(bits ^ (bits >>> 29));
+        return h != 0 ? h : 1;
+    }
+
+    private static int hash(Object key){
+        int h = key.hashCode() * 0x9E3779B9;
+        h ^= h >>> 16;
+        return h != 0 ? h : 1;
+    }
+
+    private void clear(int slot){
+        hashes[slot] = 0;
+        entries[2 * slot] = null;
+        entries[2 * slot + 1] = null;
+    }
+
+    private void allocate(int tableSize){
+        hashes = new int[tableSize];
+        entries = new Object[2 * tableSize];
+        mask = tableSize - 1;
+    }
+
+    // doubles the table once it would pass three quarters full.
+    private boolean growIfFull(){
+        if((size + 1) * 4 <= hashes.length * 3) return false;
+
+        int[] oldHashes = hashes;
+        Object[] oldEntries = entries;
+        double[] oldNumberKeys = numberKeys;
+        allocate(oldHashes.length * 2);
+        if(oldNumberKeys != null) numberKeys = new double[hashes.length];
+
+        // the keys are known to be distinct, each goes in the first free slot
+        // of its run without comparing it to anything.
+        for(int i = 0; i < oldHashes.length; i++){
+            int hash = oldHashes[i];
+            if(hash == 0) continue;
+
+            int slot = hash & mask;
+            while(hashes[slot] != 0) slot = (slot + 1) & mask;
+
+            hashes[slot] = hash;
+            entries[2 * slot] = oldEntries[2 * i];
+            entries[2 * slot + 1] = oldEntries[2 * i + 1];
+            if(oldNumberKeys != null) numberKeys[slot] = oldNumberKeys[i];
+        }
+        return true;
+    }
+
+    private void checkWritable(){
+        if(frozen) throw new RuntimeError(null, "Can't modify a frozen map.");
+    }
+
+    @Override
+    public boolean isFrozen(){
+        return frozen;
+    }
+
+    @Override
+    public void freeze(Deque<Object> reachable){
+        frozen = true;
+        for(int slot = 0; slot < hashes.length; slot++){
+            if(hashes[slot] == 0) continue;
+
+            Object key = entries[2 * slot];
+            if(key != null && !(key instanceof String)) reachable.add(key);
+            if(entries[2 * slot + 1] != null) reachable.add(entries[2 * slot + 1]);
+        }
+    }
+
+    @Override
+    public String toString(){
+        return print("{...}", () -> {
+            StringBuilder text = new StringBuilder("{");
+            for(int slot = 0; slot < hashes.length; slot++){
+                if(hashes[slot] == 0) continue;
+
+                if(text.length() > 1) text.append(", ");
+                text.append(Interpreter.Stringify(keyAt(slot)));
+                text.append(": ").append(Interpreter.Stringify(entries[2 * slot + 1]));
+            }
+            return text.append("}").toString();
+        });
+    }
+}
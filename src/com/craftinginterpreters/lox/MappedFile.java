@@ -0,0 +1,184 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// a file mapped read only, as a view of its bytes. the file is mapped in
+// regions of up to 1GB so any size fits, and nothing is copied onto the heap
+// until a script asks for a slice, which is decoded as UTF-8 into a Lox
+// string right then. positions are byte offsets.
+class MappedFile extends NativeObject {
+
+    private static final int REGION_BITS = 30;
+    private static final long REGION_SIZE = 1L << REGION_BITS;
+
+    private static final SymbolMap<Method> methods = new SymbolMap<>();
+
+    static {
+        define(methods, "size", 0, (self, arguments) -> (double)((MappedFile)self).size);
+        define(methods, "byte", 1, (self, arguments) -> {
+            MappedFile file = (MappedFile)self;
+            return (double)(file.byteAt(file.position(arguments.get(0), file.size - 1)) & 0xff);
+        });
+        define(methods, "slice", 2, (self, arguments) -> {
+            MappedFile file = (MappedFile)self;
+            long from = file.position(arguments.get(0), file.size);
+            long to = file.position(arguments.get(1), file.size);
+            if(to < from) throw new RuntimeError(null, "Slice end is before its start.");
+            return file.slice(from, to);
+        });
+        define(methods, "find", 2, (self, arguments) -> {
+            MappedFile file = (MappedFile)self;
+            String text = NativeFunction.argument(arguments, 0, String.class, "find expects a string");
+            long from = file.position(arguments.get(1), file.size);
+            return (double)file.find(text.getBytes(StandardCharsets.UTF_8), from);
+        });
+        define(methods, "lines", 0, (self, arguments) -> new Lines((MappedFile)self));
+    }
+
+    private final String path;
+    private final long size;
+    private final MappedByteBuffer[] regions;
+
+    private MappedFile(String path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.size = channel.size();
+        this.regions = new MappedByteBuffer[(int)((size + REGION_SIZE - 1) >>> REGION_BITS)];
+        for(int i = 0; i < regions.length; i++){
+            long start = (long)i << REGION_BITS;
+            regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+        }
+    }
+
+    // the mapping outlives the channel, it is released when the view is collected.
+    static MappedFile open(String path){
+        try(FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)){
+            return new MappedFile(path, channel);
+        }catch (NoSuchFileException error){
+            throw new RuntimeError(null, "Could not map '" + path + "': no such file.");
+        }catch (IOException | UnsupportedOperationException error){
+            throw new RuntimeError(null, "Could not map '" + path + "': " + error.getMessage());
+        }
+    }
+
+    @Override
+    SymbolMap<Method> methods(){
+        return methods;
+    }
+
+    long size(){
+        return size;
+    }
+
+    byte byteAt(long position){
+        return regions[(int)(position >>> REGION_BITS)].get((int)(position & (REGION_SIZE - 1)));
+    }
+
+    // the bytes from, up to but not including to, as a string.
+    String slice(long from, long to){
+        if(to - from > Integer.MAX_VALUE - 8){
+            throw new RuntimeError(null, "Slice of " + (to - from) + " bytes is too large for a string.");
+        }
+
+        byte[] bytes = new byte[(int)(to - from)];
+        int region = (int)(from >>> REGION_BITS);
+        int offset = (int)(from & (REGION_SIZE - 1));
+        int copied = 0;
+        while(copied < bytes.length){
+            int count = Math.min(bytes.length - copied, regions[region].limit() - offset);
+            regions[region].get(offset, bytes, copied, count);
+            copied += count;
+            region++;
+            offset = 0;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // the position of the first match of needle at or after from, or -1.
+    long find(byte[] needle, long from){
+        if(needle.length == 0) return from;
+
+        byte first = needle[0];
+        long last = size - needle.length;
+        for(long position = from; position <= last; position++){
+            if(byteAt(position) != first) continue;
+
+            int matched = 1;
+            while(matched < needle.length && byteAt(position + matched) == needle[matched]){
+                matched++;
+            }
+            if(matched == needle.length) return position;
+        }
+        return -1;
+    }
+
+    // the argument as a byte position no greater than limit, or a runtime error.
+    private long position(Object value, long limit){
+        if(!(value instanceof Double)) throw new RuntimeError(null, "File position must be a number.");
+
+        double position = (double)value;
+        if(position != Math.floor(position) || position < 0 || position > limit){
+            throw new RuntimeError(null, "File position " + Interpreter.Stringify(value) +
+                    " is out of bounds for size " + size + ".");
+        }
+        return (long)position;
+    }
+
+    @Override
+    public String toString(){
+        return "<mapped file " + path + ">";
+    }
+
+    // a cursor over the lines of a mapped file. lines end at '\n', a '\r'
+    // before it is dropped, and a last line without a newline still counts.
+    static final class Lines extends NativeObject {
+
+        private static final SymbolMap<Method> methods = new SymbolMap<>();
+
+        static {
+            define(methods, "hasNext", 0, (self, arguments) -> ((Lines)self).hasNext());
+            define(methods, "next", 0, (self, arguments) -> {
+                Lines lines = (Lines)self;
+                if(!lines.hasNext()) throw new RuntimeError(null, "No more lines.");
+                return lines.next();
+            });
+            define(methods, "position", 0, (self, arguments) -> (double)((Lines)self).position);
+        }
+
+        private final MappedFile file;
+        private long position = 0;
+
+        Lines(MappedFile file){
+            this.file = file;
+        }
+
+        @Override
+        SymbolMap<Method> methods(){
+            return methods;
+        }
+
+        boolean hasNext(){
+            return position < file.size;
+        }
+
+        String next(){
+            long start = position;
+            long end = start;
+            while(end < file.size && file.byteAt(end) != '\n') end++;
+
+            position = end < file.size ? end + 1 : end;
+            if(end > start && file.byteAt(end - 1) == '\r') end--;
+            return file.slice(start, end);
+        }
+
+        @Override
+        public String toString(){
+            return "<lines>";
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.craftinginterpreters.lox;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// counts of what a script allocates, for --stats and for tracking
+// allocation regressions from java. the interpreter reports each allocation
+// where it is made; when no Metrics is active a report is a static read.
+//
+// bytes are estimates for a 64 bit JVM with compressed pointers: 12 byte
+// object headers, 16 byte array headers, 8 byte alignment, and maps at the
+// size they are created with. growing a map later is not counted.
+final class Metrics {
+
+    // an Environment or LoxInstance and the SymbolMap it starts with.
+    static final int ENVIRONMENT_BYTES = 24 + 32 + 48 + 48;
+    static final int INSTANCE_BYTES = 24 + 32 + 48 + 48;
+    // a LoxFunction, its environment is counted as one.
+    static final int FUNCTION_BYTES = 24;
+    static final int ROPE_BYTES = 32;
+    static final int NUMBER_BYTES = 16;
+
+    static Metrics active = null;
+
+    private final LongAdder environments = new LongAdder();
+    private final LongAdder instances = new LongAdder();
+    private final LongAdder functions = new LongAdder();
+    private final LongAdder boundMethods = new LongAdder();
+    private final LongAdder strings = new LongAdder();
+    private final LongAdder stringBytes = new LongAdder();
+    private final LongAdder numbers = new LongAdder();
+    private final LongAccumulator peakDepth = new LongAccumulator(Math::max, 0);
+
+    // starts counting in every thread.
+    static Metrics start(){
+        Metrics metrics = new Metrics();
+        active = metrics;
+        return metrics;
+    }
+
+    // prints the counts to out when the JVM exits.
+    Metrics reportAtExit(PrintStream out){
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> report(out)));
+        return this;
+    }
+
+    static void environment(int depth){
+        Metrics metrics = active;
+        if(metrics == null) return;
+        metrics.environments.increment();
+        metrics.peakDepth.accumulate(depth);
+    }
+
+    static void instance(){
+        Metrics metrics = active;
+        if(metrics != null) metrics.instances.increment();
+    }
+
+    static void function(){
+        Metrics metrics = active;
+        if(metrics != null) metrics.functions.increment();
+    }
+
+    static void boundMethod(){
+        Metrics metrics = active;
+        if(metrics != null) metrics.boundMethods.increment();
+    }
+
+    // a string made by +, either copied out or a rope node.
+    static void string(int length, boolean rope){
+        Metrics metrics = active;
+        if(metrics == null) return;
+        metrics.strings.increment();
+        // a latin-1 String and its byte array, or a rope node.
+        metrics.stringBytes.add(rope ? ROPE_BYTES : 24 + align(16 + length));
+    }
+
+    // the result of arithmetic, boxed on the way back to the interpreter.
+    static Double number(double value){
+        Metrics metrics = active;
+        if(metrics != null) metrics.numbers.increment();
+        return value;
+    }
+
+    long environments(){
+        return environments.sum();
+    }
+
+    long instances(){
+        return instances.sum();
+    }
+
+    long boundMethods(){
+        return boundMethods.sum();
+    }
+
+    // functions made by declarations, not by binding a method.
+    long closures(){
+        return functions.sum() - boundMethods.sum();
+    }
+
+    long strings(){
+        return strings.sum();
+    }
+
+    long numbers(){
+        return numbers.sum();
+    }
+
+    // the longest chain of environments a lookup could walk, globals are 0.
+    long peakDepth(){
+        return peakDepth.get();
+    }
+
+    // the estimated bytes allocated for everything counted.
+    long bytes(){
+        return environments() * ENVIRONMENT_BYTES + instances() * INSTANCE_BYTES
+                + functions.sum() * FUNCTION_BYTES + stringBytes.sum() + numbers() * NUMBER_BYTES;
+    }
+
+    void report(PrintStream out){
+        out.println("allocations");
+        out.printf("  %-22s %14s %14s%n", "", "count", "est. bytes");
+        row(out, "environments", environments(), environments() * ENVIRONMENT_BYTES);
+        row(out, "instances", instances(), instances() * INSTANCE_BYTES);
+        row(out, "bound methods", boundMethods(), boundMethods() * FUNCTION_BYTES);
+        row(out, "closures", closures(), closures() * FUNCTION_BYTES);
+        row(out, "strings", strings(), stringBytes.sum());
+        row(out, "numbers", numbers(), numbers() * NUMBER_BYTES);
+        row(out, "total", -1, bytes());
+        out.printf("  %-22s %14d%n", "peak environment depth", peakDepth());
+        out.flush();
+    }
+
+    private static void row(PrintStream out, String name, long count, long bytes){
+        out.printf("  %-22s %14s %,14d%n", name, count < 0 ? "" : String.format("%,d", count), bytes);
+    }
+
+    private static long align(long bytes){
+        return (bytes + 7) & ~7L;
+    }
+}
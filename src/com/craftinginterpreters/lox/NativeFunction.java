@@ -0,0 +1,57 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+
+// a global function implemented in java. a native reports a bad argument by
+// throwing a RuntimeError with no token, the interpreter fills in the call site.
+class NativeFunction implements LoxCallable {
+
+    interface Body {
+        Object call(Interpreter interpreter, List<Object> arguments);
+    }
+
+    private final int arity;
+    private final Body body;
+
+    NativeFunction(int arity, Body body){
+        this.arity = arity;
+        this.body = body;
+    }
+
+    @Override
+    public int aerity() {
+        return arity;
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        return body.call(interpreter, arguments);
+    }
+
+    @Override
+    public String toString(){
+        return "<native fn>";
+    }
+
+    // the argument at index as the given type, or a runtime error.
+    static <T> T argument(List<Object> arguments, int index, Class<T> type, String message){
+        Object value = arguments.get(index);
+        if(type == String.class) value = Rope.flatten(value);
+        if(!type.isInstance(value)){
+            throw new RuntimeError(null, message);
+        }
+        return type.cast(value);
+    }
+
+    // the argument at index as a non negative whole number, or a runtime error.
+    static int count(List<Object> arguments, int index, String message){
+        Object value = arguments.get(index);
+        if(!(value instanceof Double)) throw new RuntimeError(null, message);
+
+        double number = (double)value;
+        if(number < 0 || number != Math.floor(number) || number > Integer.MAX_VALUE){
+            throw new RuntimeError(null, message);
+        }
+        return (int)number;
+    }
+}
@@ -0,0 +1,62 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+// base of the built in object types. their methods are natives found by
+// symbol, and a Get returns the method bound to the object the same way a
+// Get on a LoxInstance returns a bound LoxFunction.
+abstract class NativeObject {
+
+    interface Body {
+        Object call(NativeObject self, List<Object> arguments);
+    }
+
+    static final class Method {
+        final int arity;
+        final Body body;
+
+        Method(int arity, Body body){
+            this.arity = arity;
+            this.body = body;
+        }
+    }
+
+    // the objects this thread is in the middle of printing.
+    private static final ThreadLocal<Set<NativeObject>> printing =
+            ThreadLocal.withInitial(() -> Collections.newSetFromMap(new IdentityHashMap<>()));
+
+    // the text contents makes, or placeholder when this object is already
+    // being printed further out, so one that holds itself does not recurse
+    // forever.
+    final String print(String placeholder, Supplier<String> contents){
+        Set<NativeObject> open = printing.get();
+        if(!open.add(this)) return placeholder;
+        try{
+            return contents.get();
+        }finally{
+            open.remove(this);
+        }
+    }
+
+    static void define(SymbolMap<Method> methods, String name, int arity, Body body){
+        methods.put(Symbols.intern(name), new Method(arity, body));
+    }
+
+    // the method table shared by every object of the type.
+    abstract SymbolMap<Method> methods();
+
+    Object get(Token name){
+        Method method = methods().get(name.symbol);
+        if(method == null){
+            throw new RuntimeError(name, "Undefined property '" + name.lexeme + "'.");
+        }
+
+        NativeObject self = this;
+        return new NativeFunction(method.arity,
+                (interpreter, arguments) -> method.body.call(self, arguments));
+    }
+}
@@ -0,0 +1,126 @@
+package com.craftinginterpreters.lox;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// where print writes. lines are encoded as UTF-8 into one large buffer that
+// goes to the channel only when it fills, on flush, or, in line buffered
+// mode, after every line. System.out flushes a 128 byte buffer on every
+// println instead, a system call per printed line.
+// the interpreter flushes after a program runs and before a runtime error
+// is reported, so output and errors still come out in order. spawned tasks
+// print through the same sink, the methods are synchronized for them.
+// like PrintStream a failed write does not throw, it is remembered for
+// checkError and later output is dropped.
+class Output {
+
+    static final int BUFFER_SIZE = 1 << 16;
+
+    // standard output, line buffered when it is a terminal someone is reading.
+    static final Output standard = new Output(
+            new FileOutputStream(FileDescriptor.out).getChannel(), System.console() != null);
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private boolean lineBuffered;
+    private boolean failed = false;
+
+    Output(WritableByteChannel channel, boolean lineBuffered){
+        this.channel = channel;
+        this.lineBuffered = lineBuffered;
+    }
+
+    // a sink writing to a file, replacing what it held.
+    static Output file(Path path) throws IOException {
+        return new Output(FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), false);
+    }
+
+    // a sink that formats and buffers like any other and then drops the bytes.
+    static Output discard(){
+        return new Output(Channels.newChannel(OutputStream.nullOutputStream()), false);
+    }
+
+    synchronized void setLineBuffered(boolean lineBuffered){
+        drain();
+        this.lineBuffered = lineBuffered;
+    }
+
+    synchronized void println(String text){
+        // one byte per char is enough unless there are non ASCII characters.
+        if(text.length() < buffer.capacity() && isAscii(text)){
+            if(buffer.remaining() < text.length() + 1) drain();
+            for(int i = 0; i < text.length(); i++){
+                buffer.put((byte)text.charAt(i));
+            }
+        }else{
+            write(text.getBytes(StandardCharsets.UTF_8));
+            if(!buffer.hasRemaining()) drain();
+        }
+        buffer.put((byte)'\n');
+
+        if(lineBuffered) drain();
+    }
+
+    synchronized void println(double number){
+        if(buffer.remaining() < DoubleFormat.MAX_LENGTH + 1) drain();
+
+        int length = DoubleFormat.format(number, buffer.array(),
+                buffer.arrayOffset() + buffer.position());
+        if(length < 0){
+            println(DoubleFormat.toString(number));
+            return;
+        }
+        buffer.position(buffer.position() + length);
+        buffer.put((byte)'\n');
+
+        if(lineBuffered) drain();
+    }
+
+    synchronized void flush(){
+        drain();
+    }
+
+    synchronized boolean checkError(){
+        drain();
+        return failed;
+    }
+
+    private void write(byte[] bytes){
+        int written = 0;
+        while(written < bytes.length){
+            if(!buffer.hasRemaining()) drain();
+            int count = Math.min(buffer.remaining(), bytes.length - written);
+            buffer.put(bytes, written, count);
+            written += count;
+        }
+    }
+
+    private void drain(){
+        buffer.flip();
+        try{
+            while(buffer.hasRemaining() && !failed){
+                channel.write(buffer);
+            }
+        }catch (IOException error){
+            failed = true;
+        }
+        buffer.clear();
+    }
+
+    private static boolean isAscii(String text){
+        for(int i = 0; i < text.length(); i++){
+            if(text.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+}
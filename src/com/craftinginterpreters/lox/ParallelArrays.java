@@ -0,0 +1,136 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+
+// pmap, pfilter and preduce: whole array operations that call a Lox function
+// on the common fork-join pool. map and filter go through ParallelLoop, so
+// each piece of the array runs on an execution state of its own and writes
+// only its own result slots; the results are then put together in element
+// order. the function must not assign shared state, the same as the body of
+// a parallel for.
+final class ParallelArrays {
+
+    // pieces per worker, as in ParallelLoop.
+    private static final int PIECES_PER_WORKER = 4;
+
+    private ParallelArrays(){}
+
+    static void define(Environment globals){
+        globals.define("pmap", new NativeFunction(2, (interpreter, arguments) -> {
+            LoxArray array = NativeFunction.argument(arguments, 0, LoxArray.class,
+                    "pmap expects an array");
+            LoxCallable function = function(arguments, 1, 1, "pmap");
+
+            Object[] results = new Object[array.size()];
+            ParallelLoop.run(interpreter, 0, results.length, (worker, index) ->
+                    results[(int)index] = function.call(worker, Arrays.asList(array.get((int)index))));
+
+            LoxArray mapped = new LoxArray();
+            for(Object result : results) mapped.push(result);
+            return mapped;
+        }));
+
+        globals.define("pfilter", new NativeFunction(2, (interpreter, arguments) -> {
+            LoxArray array = NativeFunction.argument(arguments, 0, LoxArray.class,
+                    "pfilter expects an array");
+            LoxCallable function = function(arguments, 1, 1, "pfilter");
+
+            boolean[] keep = new boolean[array.size()];
+            ParallelLoop.run(interpreter, 0, keep.length, (worker, index) ->
+                    keep[(int)index] = worker.isTruthy(
+                            function.call(worker, Arrays.asList(array.get((int)index)))));
+
+            LoxArray filtered = new LoxArray();
+            for(int i = 0; i < keep.length; i++){
+                if(keep[i]) filtered.push(array.get(i));
+            }
+            return filtered;
+        }));
+
+        // the function has to be associative, pieces are folded on their own
+        // and their results combined afterwards. initial is folded in first.
+        globals.define("preduce", new NativeFunction(3, (interpreter, arguments) -> {
+            LoxArray array = NativeFunction.argument(arguments, 0, LoxArray.class,
+                    "preduce expects an array");
+            LoxCallable function = function(arguments, 1, 2, "preduce");
+            Object initial = arguments.get(2);
+            if(array.size() == 0) return initial;
+
+            int pieces = ForkJoinPool.getCommonPoolParallelism() * PIECES_PER_WORKER;
+            int grain = Math.max(1, array.size() / pieces);
+
+            AtomicReference<RuntimeException> failure = new AtomicReference<>();
+            Object reduced = ForkJoinPool.commonPool().invoke(
+                    new Reduce(interpreter, function, array, 0, array.size(), grain, failure));
+            if(failure.get() != null) throw failure.get();
+
+            return function.call(interpreter, Arrays.asList(initial, reduced));
+        }));
+    }
+
+    // the argument at index as a function taking arity arguments, or a runtime error.
+    private static LoxCallable function(List<Object> arguments, int index, int arity, String name){
+        LoxCallable function = NativeFunction.argument(arguments, index, LoxCallable.class,
+                name + " expects a function");
+        if(function.aerity() != arity){
+            throw new RuntimeError(null, name + " expects a function with " + arity +
+                    (arity == 1 ? " parameter" : " parameters"));
+        }
+        return function;
+    }
+
+    private static final class Reduce extends RecursiveTask<Object> {
+        private final Interpreter interpreter;
+        private final LoxCallable function;
+        private final LoxArray array;
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final AtomicReference<RuntimeException> failure;
+
+        Reduce(Interpreter interpreter, LoxCallable function, LoxArray array, int from, int to,
+               int grain, AtomicReference<RuntimeException> failure){
+            this.interpreter = interpreter;
+            this.function = function;
+            this.array = array;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.failure = failure;
+        }
+
+        @Override
+        protected Object compute(){
+            Interpreter worker = interpreter.fork();
+            if(to - from > grain){
+                int middle = (from + to) >>> 1;
+                Reduce right = new Reduce(interpreter, function, array, middle, to, grain, failure);
+                right.fork();
+                Object left = new Reduce(interpreter, function, array, from, middle, grain, failure).compute();
+                Object rest = right.join();
+                if(failure.get() != null) return null;
+
+                return combine(worker, left, rest);
+            }
+
+            Object result = array.get(from);
+            for(int i = from + 1; i < to && failure.get() == null; i++){
+                result = combine(worker, result, array.get(i));
+            }
+            return result;
+        }
+
+        private Object combine(Interpreter worker, Object left, Object right){
+            try{
+                return function.call(worker, Arrays.asList(left, right));
+            }catch (RuntimeException error){
+                failure.compareAndSet(null, error);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.craftinginterpreters.lox;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+// runs the iterations of a parallel for on the common fork-join pool. the
+// range is halved until the pieces are small, idle workers steal the halves
+// still waiting, and every piece runs on an execution state of its own.
+final class ParallelLoop {
+
+    interface Body {
+        void run(Interpreter worker, double index);
+    }
+
+    // pieces per worker, so a slow piece can be balanced by stealing the rest.
+    private static final int PIECES_PER_WORKER = 4;
+
+    private ParallelLoop(){}
+
+    static void run(Interpreter interpreter, double start, double end, Body body){
+        long count = (long)Math.ceil(end - start);
+        if(count <= 0) return;
+
+        long pieces = (long)ForkJoinPool.getCommonPoolParallelism() * PIECES_PER_WORKER;
+        long grain = Math.max(1, count / pieces);
+
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ForkJoinPool.commonPool().invoke(
+                new Piece(interpreter, body, start, 0, count, grain, failure));
+
+        // the first error stops the other pieces and is raised on this thread.
+        if(failure.get() != null) throw failure.get();
+    }
+
+    private static final class Piece extends RecursiveAction {
+        private final Interpreter interpreter;
+        private final Body body;
+        private final double start;
+        private final long from;
+        private final long to;
+        private final long grain;
+        private final AtomicReference<RuntimeException> failure;
+
+        Piece(Interpreter interpreter, Body body, double start, long from, long to,
+              long grain, AtomicReference<RuntimeException> failure){
+            this.interpreter = interpreter;
+            this.body = body;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute(){
+            if(to - from > grain){
+                long middle = (from + to) >>> 1;
+                invokeAll(new Piece(interpreter, body, start, from, middle, grain, failure),
+                          new Piece(interpreter, body, start, middle, to, grain, failure));
+                return;
+            }
+
+            Interpreter worker = interpreter.fork();
+            try{
+                for(long i = from; i < to && failure.get() == null; i++){
+                    body.run(worker, start + i);
+                }
+            }catch (RuntimeException error){
+                failure.compareAndSet(null, error);
+            }
+        }
+    }
+}
@@ -69,6 +69,13 @@ class Parser {
 
         if(match(FOR)) return ForStatement();
 
+        // parallel is only a keyword in front of for. 
+        if(check(IDENTIFIER) && peek().lexeme.equals("parallel") && checkNext(FOR)){
+            advance(); 
+            advance(); 
+            return ParallelForStatement(); 
+        }
+
         if(match(LEFT_BRACE)){return new Stmt.Block(block());}
 
         return ExpressionStatement(); 
@@ -133,6 +140,7 @@ class Parser {
     }
 
     private Stmt ForStatement(){
+        Token keyword = previous();
 
         consume(LEFT_PAREN, "expect ( after for keyword");
 
@@ -169,7 +177,7 @@ class Parser {
 
         if(condition == null) condition = new Expr.Literal(true);
 
-        body = new Stmt.While(condition, body);
+        body = new Stmt.While(keyword, condition, body);
 
         if(initializer != null){
             body = new Stmt.Block(Arrays.asList(initializer, body));
@@ -179,7 +187,45 @@ class Parser {
 
     }
 
+    // parallel for (var i = start; i < end; i = i + 1) body
+    // only the counting form is accepted, the range is split across threads. 
+    private Stmt ParallelForStatement(){
+        Token keyword = previous(); 
+
+        consume(LEFT_PAREN, "expect ( after parallel for"); 
+        consume(VAR, "parallel for must declare its loop variable"); 
+        Token variable = consume(IDENTIFIER, "expect a name for the loop variable"); 
+        consume(EQUAL, "expect = after the loop variable"); 
+        Expr start = expression(); 
+        consume(SEMICOLON, "expect semicolon after the start of the range"); 
+
+        String form = "parallel for must count " + variable.lexeme + " up by one"; 
+
+        loopVariable(variable, form); 
+        consume(LESS, form); 
+        Expr end = expression(); 
+        consume(SEMICOLON, "expect semicolon after the end of the range"); 
+
+        loopVariable(variable, form); 
+        consume(EQUAL, form); 
+        loopVariable(variable, form); 
+        consume(PLUS, form); 
+        Token step = consume(NUMBER, form); 
+        if(!step.literal.equals(1.0)) throw error(step, form); 
+        consume(RIGHT_PAREN, "expect ) after the definition of parallel for"); 
+
+        Stmt body = statement(); 
+
+        return new Stmt.ParallelFor(keyword, variable, start, end, body); 
+    }
+
+    private void loopVariable(Token variable, String message){
+        Token name = consume(IDENTIFIER, message); 
+        if(name.symbol != variable.symbol) throw error(name, message); 
+    }
+
     private Stmt WhileStatement(){
+        Token keyword = previous();
 
         consume(LEFT_PAREN, "expect ( before while condition");
         Expr condition = expression();
@@ -187,7 +233,7 @@ class Parser {
 
         Stmt WhileStatement = statement();
 
-        return new Stmt.While(condition, WhileStatement);
+        return new Stmt.While(keyword, condition, WhileStatement);
     }
 
     private Stmt IfStatement(){
@@ -452,21 +498,21 @@ class Parser {
 
         while (!isAtEnd()){
             if(previous().type == SEMICOLON) {return; }
-        }
         
-        switch(peek().type){
-            case CLASS:
-            case FUNC:
-            case VAR:
-            case WHILE: 
-            case FOR:
-            case IF:
-            case PRINT:
-            case RETURN: 
-                return;
-        }
+            switch(peek().type){
+                case CLASS:
+                case FUNC:
+                case VAR:
+                case WHILE: 
+                case FOR:
+                case IF:
+                case PRINT:
+                case RETURN: 
+                    return;
+            }
 
-        advance(); 
+            advance(); 
+        }
     }
 
     private boolean match(TokenType... types){
@@ -489,6 +535,13 @@ class Parser {
         return peek().type == type; 
     }
 
+    private boolean checkNext(TokenType type){
+
+        if(isAtEnd()) return false; 
+
+        return tokens.get(current + 1).type == type; 
+    }
+
     private Token advance(){
         if(!isAtEnd()){
             current++; 
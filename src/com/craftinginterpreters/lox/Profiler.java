@@ -0,0 +1,174 @@
+package com.craftinginterpreters.lox;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// the --profile sampling profiler. every thread running Lox code keeps a
+// shadow stack of the Lox functions it is in, pushed and popped by
+// LoxFunction.call, and of the line each of them is on. a daemon thread
+// reads the stacks at a fixed interval and counts each distinct stack; at
+// exit the counts are written in the collapsed format flame graph tools
+// read, one "frame;frame;frame count" line per stack. the bottom frame of
+// the main thread is <script>.
+//
+// a frame is a function's name and the line it is on, like a java
+// profiler's method:line. lines are only known at calls: a frame that is
+// calling something shows the line of that call, natives included, the
+// innermost frame shows the line its function is declared on. a hot
+// function therefore splits into the call sites it spends its time under.
+//
+// when profiling is off a call pays a null check of the interpreter's
+// stack and one static read. when it is on an interpreter looks its
+// thread's stack up once, a call pays a line store, a push and a pop, and
+// the sampler wakes every 10 ms; waking every millisecond cost 3-4% of a
+// core on its own. ProfilerBenchmark puts the overhead at a median of +3%
+// (95% confidence up to +6%) on fib, which does nothing but call, and -1%
+// (up to +4%) on the closures workload.
+final class Profiler {
+
+    static final long INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    static Profiler active = null;
+
+    private final Path output;
+    private final Thread main = Thread.currentThread();
+    private final List<Stack> stacks = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Stack> current = ThreadLocal.withInitial(this::register);
+    private final Map<String, long[]> counts = new HashMap<>();
+    private final Thread sampler = new Thread(this::sample, "lox-profiler");
+    private volatile boolean running = true;
+
+    private Profiler(Path output){
+        this.output = output;
+    }
+
+    // starts sampling every thread, the profile is written when the JVM exits.
+    static Profiler start(Path output){
+        Profiler profiler = new Profiler(output);
+        active = profiler;
+
+        profiler.sampler.setDaemon(true);
+        profiler.sampler.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(profiler::stop));
+        return profiler;
+    }
+
+    // the calling thread's stack. an interpreter keeps the one it got, it
+    // only ever runs on one thread.
+    Stack stack(){
+        return current.get();
+    }
+
+    // written only by its own thread. the fields are deliberately not
+    // volatile, a fence on every call would cost more than the rest of the
+    // profiler; the sampler reads them racily and at worst sees a stack a
+    // frame out of date.
+    static final class Stack {
+        private final Thread thread;
+        private Token[] frames = new Token[64];
+        // lines[i] is the line of the call frame i - 1 made to enter frame i,
+        // lines[0] is the bottom frame's latest call.
+        private int[] lines = new int[65];
+        private int depth = 0;
+
+        Stack(Thread thread){
+            this.thread = thread;
+        }
+
+        // the function declared by name is entered.
+        void push(Token name){
+            int depth = this.depth;
+            if(depth == frames.length) grow();
+            frames[depth] = name;
+            this.depth = depth + 1;
+        }
+
+        // kept out of push, so the JIT inlines a push into every call.
+        private void grow(){
+            frames = Arrays.copyOf(frames, depth * 2);
+            lines = Arrays.copyOf(lines, depth * 2 + 1);
+        }
+
+        // the running frame makes a call at site.
+        void at(Token site){
+            lines[depth] = site.line;
+        }
+
+        void pop(){
+            depth = depth - 1;
+        }
+    }
+
+    private Stack register(){
+        Stack stack = new Stack(Thread.currentThread());
+        stacks.add(stack);
+        return stack;
+    }
+
+    private void sample(){
+        StringBuilder key = new StringBuilder();
+        while(running){
+            LockSupport.parkNanos(INTERVAL_NANOS);
+
+            for(Stack stack : stacks){
+                if(!stack.thread.isAlive()){
+                    stacks.remove(stack);
+                    continue;
+                }
+
+                int depth = stack.depth;
+                Token[] frames = stack.frames;
+                int[] lines = stack.lines;
+                depth = Math.min(depth, Math.min(frames.length, lines.length - 1));
+
+                // other threads are idle between calls, only the main thread
+                // runs Lox code outside of any function.
+                boolean onMain = stack.thread == main;
+                if(depth == 0 && !onMain) continue;
+
+                key.setLength(0);
+                key.append(onMain ? "<script>" : stack.thread.getName());
+                if(depth > 0) key.append(':').append(lines[0]);
+                for(int i = 0; i < depth; i++){
+                    Token frame = frames[i];
+                    if(frame == null) continue;
+                    int line = i + 1 < depth ? lines[i + 1] : frame.line;
+                    key.append(';').append(frame.lexeme).append(':').append(line);
+                }
+
+                synchronized(counts){
+                    counts.computeIfAbsent(key.toString(), stackKey -> new long[1])[0]++;
+                }
+            }
+        }
+    }
+
+    private void stop(){
+        running = false;
+        try{
+            sampler.join();
+        }catch (InterruptedException error){
+            Thread.currentThread().interrupt();
+        }
+
+        try(PrintWriter writer = new PrintWriter(Files.newBufferedWriter(output, StandardCharsets.UTF_8))){
+            synchronized(counts){
+                for(Map.Entry<String, long[]> entry : counts.entrySet()){
+                    writer.println(entry.getKey() + " " + entry.getValue()[0]);
+                }
+            }
+        }catch (IOException error){
+            System.err.println("Could not write the profile to " + output + ": " + error.getMessage());
+        }
+    }
+}
@@ -1,17 +1,17 @@
 package com.craftinginterpreters.lox;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Stack;
 
 public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
-    private final Interpreter interpreter;
-
-    private final Stack<Map<String, Boolean>> scopes = new Stack<>();
+    private final Stack<SymbolMap<Boolean>> scopes = new Stack<>();
     private FunctionType currentFunction = FunctionType.NONE;
 
+    // the scope of the innermost parallel for variable, -1 outside one. 
+    private int parallelScope = -1;
+    private boolean inParallelBody = false;
+
     private enum FunctionType{
         NONE,
         FUNCTION,
@@ -26,10 +26,6 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
     private ClassType currentClass = ClassType.NONE;
 
-    Resolver(Interpreter interpreter){
-        this.interpreter = interpreter;
-    }
-
     @Override
     public Void visitBinaryExpr(Expr.Binary expr) {
         resolve(expr.left);
@@ -41,6 +37,13 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     public Void visitAssignmentExpr(Expr.Assignment expr) {
         resolve(expr.value); 
         ResolveLocal(expr, expr.name);
+
+        // iterations of a parallel for run at the same time, they may only
+        // assign to variables declared inside the loop. 
+        if(parallelScope != -1 &&
+                (expr.depth == -1 || scopes.size() - 1 - expr.depth < parallelScope)){
+            lox.error(expr.name, "can't assign to a variable outside a parallel for from inside it");
+        }
         return null;
     }
 
@@ -112,7 +115,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     @Override
     public Void visitVarExpr(Expr.Var expr) {
 
-        if(!scopes.isEmpty() && scopes.peek().get(expr.name.lexeme) == Boolean.FALSE){
+        if(!scopes.isEmpty() && scopes.peek().get(expr.name.symbol) == Boolean.FALSE){
             lox.error(expr.name, "can't resolve variable in its own initializer");
         }
 
@@ -145,7 +148,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         define(stmt.name);
 
         if(stmt.superClass != null &&
-        stmt.name.lexeme.equals(stmt.superClass.name.lexeme)){
+        stmt.name.symbol == stmt.superClass.name.symbol){
             lox.error(stmt.superClass.name, "class cannot inherit from itself");
         }
 
@@ -155,15 +158,15 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
         if(stmt.superClass != null){
             beginScope();
-            scopes.peek().put("super", true);
+            scopes.peek().put(Symbols.SUPER, true);
         }
 
         beginScope();
-        scopes.peek().put("this", true);
+        scopes.peek().put(Symbols.THIS, true);
 
         for(Stmt.Func method: stmt.methods){
             FunctionType declaration = FunctionType.METHOD;
-            if (method.name.lexeme.equals("init")){
+            if (method.name.symbol == Symbols.INIT){
                 declaration = FunctionType.INITIALIZER;
             }
             resolveFunction(method, declaration);
@@ -203,6 +206,28 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitParallelForStmt(Stmt.ParallelFor stmt) {
+        resolve(stmt.start);
+        resolve(stmt.end);
+
+        int enclosingScope = parallelScope;
+        boolean enclosingBody = inParallelBody;
+
+        beginScope();
+        declare(stmt.variable);
+        define(stmt.variable);
+        parallelScope = scopes.size() - 1;
+        inParallelBody = true;
+
+        resolve(stmt.body);
+
+        endScope();
+        parallelScope = enclosingScope;
+        inParallelBody = enclosingBody;
+        return null;
+    }
+
     @Override
     public Void visitPrintStmt(Stmt.Print stmt) {
         resolve(stmt.expression);
@@ -229,6 +254,10 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             lox.error(stmt.keyword, "Can't return from top-level code");
         }
 
+        if(inParallelBody){
+            lox.error(stmt.keyword, "Can't return from inside a parallel for");
+        }
+
         if(stmt.value != null){
             if(currentFunction == FunctionType.INITIALIZER){
                 lox.error(stmt.keyword,
@@ -241,7 +270,7 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     }
 
     private void beginScope(){
-        scopes.push(new HashMap<String, Boolean>());
+        scopes.push(new SymbolMap<Boolean>());
     }
 
     private void endScope(){
@@ -267,35 +296,40 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
 
         if(scopes.isEmpty()) return;
 
-        Map<String, Boolean> scope = scopes.peek();
+        SymbolMap<Boolean> scope = scopes.peek();
 
-        if(scope.containsKey(name.lexeme)){
+        if(scope.containsKey(name.symbol)){
             lox.error(name, "already a variable with this name in this scope");
         }
 
-        scope.put(name.lexeme, false); 
+        scope.put(name.symbol, false); 
 
     }
 
     private void define(Token name){
         if(scopes.isEmpty()) return;
 
-        scopes.peek().put(name.lexeme, true);
+        scopes.peek().put(name.symbol, true);
     }
 
     private void ResolveLocal(Expr expression, Token name){
 
+        // the depth is kept on the node, so it goes away with the code that uses it. 
         for(int i = scopes.size() -1; i >=0; i--){
-            if(scopes.get(i).containsKey(name.lexeme)){
-                interpreter.resolve(expression, scopes.size() - 1 -i);
+            if(scopes.get(i).containsKey(name.symbol)){
+                expression.depth = scopes.size() - 1 -i;
+                return;
             }
         }
+        expression.depth = -1;
     }
 
     private void resolveFunction(Stmt.Func function, FunctionType type){
 
         FunctionType enclosingFunction = currentFunction;
         currentFunction = type;
+        boolean enclosingBody = inParallelBody;
+        inParallelBody = false;
 
         beginScope();
         for(Token param: function.arguments){
@@ -305,5 +339,6 @@ public class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         resolve(function.body);
         endScope();
         currentFunction = enclosingFunction;
+        inParallelBody = enclosingBody;
     }
 }
@@ -0,0 +1,108 @@
+package com.craftinginterpreters.lox;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// a string made by + that has not been copied together yet. appending to a
+// long string builds a rope node in constant time instead of copying both
+// sides, so a loop appending n pieces is linear, not quadratic.
+// scripts never see the difference: a rope is a Lox string wherever one is
+// expected, and is flattened into a java String the first time its text is
+// needed, for printing, comparing or passing to a native. the text is then
+// kept and the children dropped.
+final class Rope implements CharSequence {
+
+    // shorter results are copied right away, a node would cost more than the copy.
+    static final int MIN_LENGTH = 256;
+
+    // String or Rope, null once flattened. the text is published before the
+    // children are dropped, so a thread that finds a child missing always
+    // finds the text.
+    private volatile Object left;
+    private volatile Object right;
+    private final int length;
+
+    private volatile String flat;
+
+    private Rope(Object left, Object right, int length){
+        this.left = left;
+        this.right = right;
+        this.length = length;
+    }
+
+    static boolean isString(Object value){
+        return value instanceof String || value instanceof Rope;
+    }
+
+    // left + right, both Lox strings.
+    static Object concat(Object left, Object right){
+        int length = ((CharSequence)left).length() + ((CharSequence)right).length();
+        if(length < MIN_LENGTH){
+            Metrics.string(length, false);
+            return left.toString() + right.toString();
+        }
+        if(((CharSequence)right).length() == 0) return left;
+        if(((CharSequence)left).length() == 0) return right;
+        Metrics.string(length, true);
+        return new Rope(left, right, length);
+    }
+
+    // the java String for a Lox string, flattening a rope.
+    static Object flatten(Object value){
+        return value instanceof Rope ? value.toString() : value;
+    }
+
+    @Override
+    public int length(){
+        return length;
+    }
+
+    @Override
+    public char charAt(int index){
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end){
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString(){
+        String text = flat;
+        if(text != null) return text;
+
+        synchronized(this){
+            if(flat != null) return flat;
+
+            // ropes built in a loop are as deep as the loop ran, so the
+            // pieces are walked with a stack rather than by recursion.
+            StringBuilder builder = new StringBuilder(length);
+            Deque<Object> pending = new ArrayDeque<>();
+            pending.push(this);
+            while(!pending.isEmpty()){
+                Object piece = pending.pop();
+                if(!(piece instanceof Rope)){
+                    builder.append((String)piece);
+                    continue;
+                }
+
+                Rope rope = (Rope)piece;
+                Object right = rope.right;
+                Object left = rope.left;
+                String done = rope.flat;
+                if(done != null){
+                    builder.append(done);
+                }else{
+                    pending.push(right);
+                    pending.push(left);
+                }
+            }
+
+            flat = builder.toString();
+            left = null;
+            right = null;
+            return flat;
+        }
+    }
+}
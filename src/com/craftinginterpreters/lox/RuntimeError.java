@@ -6,5 +6,17 @@ public class RuntimeError extends RuntimeException {
     RuntimeError(Token token, String message){
         super(message); 
         this.token = token; 
+
+        // a native's error has no token yet, it is recorded once the
+        // interpreter gives it the call site. 
+        if (token != null){
+            LoxEvents.RuntimeErrorEvent event = new LoxEvents.RuntimeErrorEvent(); 
+            if (event.isEnabled()){
+                event.message = message; 
+                event.token = token.lexeme; 
+                event.line = token.line; 
+                event.commit(); 
+            }
+        }
     }
 }
@@ -8,21 +8,32 @@ import java.util.Map;
 import static com.craftinginterpreters.lox.TokenType.*; 
 
 public class Scanner {
-    private final String source; // this is the soruce code presented as a single string. 
+    private final Source source; // the source code, read a window at a time. 
     private final List<Token> tokens = new ArrayList<>(); 
 
-    private int start = 0;
-    private int current = 0; 
+    private long start = 0;
+    private long current = 0; 
     private int line = 1; 
 
     // constructor returns an instance of the scanner class. 
     Scanner(String source){
+        this(new Source(source)); 
+    }
+
+    Scanner(Source source){
         this.source = source; 
     }
 
+    // scans a piece of a larger file that begins on the given line. 
+    Scanner(String source, int line){
+        this(new Source(source)); 
+        this.line = line; 
+    }
+
     List<Token> scanTokens(){
         while (!isAtEnd()){
             start = current; 
+            source.mark(start); 
             scanToken(); 
         }
 
@@ -160,7 +171,7 @@ public class Scanner {
     }
 
     private char peekNext(){
-        if (current +1 > source.length()) return '\0'; 
+        if (!source.has(current + 1)) return '\0'; 
 
         return source.charAt(current + 1); 
     }
@@ -176,11 +187,14 @@ public class Scanner {
 
         if  (isAtEnd()){
             lox.error(line, "unterminated string");
+            return; 
         }
 
         advance(); 
 
-        String value = source.substring(start+1, current -1); 
+        // literals are interned, so equal ones are the same object and compare
+        // by identity at run time. 
+        String value = source.substring(start+1, current -1).intern(); 
         addToken(STRING, value);
     }
 
@@ -193,7 +207,7 @@ public class Scanner {
     }
 
     private boolean isAtEnd(){
-        return current >= source.length(); 
+        return !source.has(current); 
     }
 
     private char advance(){
@@ -206,6 +220,12 @@ public class Scanner {
 
     private void addToken(TokenType type, Object literal){
         String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line)); 
+
+        // names are interned here once so later stages compare ints, not strings. 
+        int symbol = -1; 
+        if (type == IDENTIFIER || type == THIS || type == SUPER){
+            symbol = Symbols.intern(text); 
+        }
+        tokens.add(new Token(type, text, literal, line, symbol)); 
     }
 }
@@ -0,0 +1,122 @@
+package com.craftinginterpreters.lox;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+// runs many scripts at once on a fixed number of run slots, sharing them
+// out in time slices. a script only gives up its slot at a safepoint, the
+// loop back edges and calls where Limits are checked: once it has run for
+// a slice and another script is waiting, it goes to the back of the queue.
+// the slots are a fair semaphore, so scripts get them in the order they
+// asked and a short script waits for at most a slice from each script
+// ahead of it, not for them to finish.
+//
+// the tree walker keeps a run's state on the java stack, so a started
+// script holds a thread until it ends, parked while it waits for a slot.
+// only a bounded number of scripts are resident, started and holding a
+// thread, at a time; the rest wait in a queue, in the order they were
+// submitted, and cost no thread until a resident script ends. so however
+// many scripts are submitted, the scheduler holds at most resident threads
+// of Concurrency.executor, whether those are virtual threads or the pooled
+// platform threads of runtimes before java 21. spawned tasks are not
+// scheduled, and a script blocking in a native, a receive or a join keeps
+// its slot while it waits.
+final class Scheduler {
+
+    static final long DEFAULT_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // enough for a short script to get past a good number of long ones
+    // without waiting for any of them to end.
+    static final int DEFAULT_RESIDENT_PER_WORKER = 16;
+
+    private final Semaphore slots;
+    private final Semaphore resident;
+    private final Queue<Runnable> admissions = new ConcurrentLinkedQueue<>();
+    private final long sliceNanos;
+
+    Scheduler(int workers, long sliceNanos){
+        this(workers, workers * DEFAULT_RESIDENT_PER_WORKER, sliceNanos);
+    }
+
+    Scheduler(int workers, int resident, long sliceNanos){
+        if(resident < workers) throw new IllegalArgumentException("fewer resident scripts than workers");
+        this.slots = new Semaphore(workers, true);
+        this.resident = new Semaphore(resident);
+        this.sliceNanos = sliceNanos;
+    }
+
+    // runs the resolved statements in a fresh interpreter printing to output,
+    // held to limits unless they are null. the future fails with the
+    // RuntimeError, or LimitError, that stopped the script.
+    CompletableFuture<Void> submit(List<Stmt> statements, Output output, Limits limits){
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        admissions.add(() -> run(statements, output, limits, done));
+        admit();
+        return done;
+    }
+
+    // starts queued scripts while there is room for them. whoever frees room
+    // or queues a script calls this, and it looks at the queue again after
+    // giving a permit back, so a script queued meanwhile is never stranded.
+    private void admit(){
+        while(!admissions.isEmpty() && resident.tryAcquire()){
+            Runnable script = admissions.poll();
+            if(script == null){
+                resident.release();
+                continue;
+            }
+            Concurrency.executor.execute(() -> drain(script));
+        }
+    }
+
+    // a resident thread runs the scripts queued behind its own before it
+    // gives its place up, rather than handing each to a thread of its own.
+    private void drain(Runnable script){
+        while(script != null){
+            script.run();
+            script = admissions.poll();
+        }
+        resident.release();
+        admit();
+    }
+
+    private void run(List<Stmt> statements, Output output, Limits limits, CompletableFuture<Void> done){
+        Interpreter interpreter = new Interpreter();
+        interpreter.output = output;
+        if(limits != null) interpreter.limit(limits);
+
+        Turn turn = new Turn();
+        interpreter.turn = turn;
+        slots.acquireUninterruptibly();
+        turn.started = System.nanoTime();
+        try{
+            for(Stmt statement : statements){
+                interpreter.execute(statement);
+            }
+            output.flush();
+            done.complete(null);
+        }catch (Throwable error){
+            output.flush();
+            done.completeExceptionally(error);
+        }finally{
+            slots.release();
+        }
+    }
+
+    // one script's hold on a slot.
+    final class Turn {
+        private long started;
+
+        // called from the script's safepoints every Limits.CHUNK steps.
+        void safepoint(){
+            if(System.nanoTime() - started < sliceNanos || !slots.hasQueuedThreads()) return;
+
+            slots.release();
+            slots.acquireUninterruptibly();
+            started = System.nanoTime();
+        }
+    }
+}
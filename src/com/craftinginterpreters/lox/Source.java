@@ -0,0 +1,154 @@
+package com.craftinginterpreters.lox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// the characters the scanner reads. a file is memory mapped a region at a time
+// and decoded as UTF-8 into a small window, so neither the bytes nor the text
+// of the whole script have to fit on the heap.
+// positions are absolute character offsets into the source, the scanner marks
+// the start of the current token so everything before it can be dropped.
+class Source implements Closeable {
+
+    private static final int WINDOW_SIZE = 1 << 16;   // chars
+    private static final long REGION_SIZE = 1L << 26; // bytes
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder;
+
+    private MappedByteBuffer region;
+    private long regionStart = 0;
+    private boolean exhausted;
+
+    private char[] window;
+    private int count = 0;
+    private long windowStart = 0;
+    private long mark = 0;
+
+    Source(String text){
+        this.channel = null;
+        this.size = text.length();
+        this.decoder = null;
+        this.window = text.toCharArray();
+        this.count = window.length;
+        this.exhausted = true;
+    }
+
+    private Source(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.window = new char[WINDOW_SIZE];
+    }
+
+    static Source open(Path path) throws IOException {
+        return new Source(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    // true if there is a character at index, decoding more of the file if needed.
+    boolean has(long index){
+        while(index >= windowStart + count){
+            if(!refill()) return false;
+        }
+        return true;
+    }
+
+    char charAt(long index){
+        return window[(int)(index - windowStart)];
+    }
+
+    String substring(long from, long to){
+        return new String(window, (int)(from - windowStart), (int)(to - from));
+    }
+
+    // characters before index are no longer needed by the scanner.
+    void mark(long index){
+        mark = index;
+    }
+
+    private boolean refill(){
+        if(exhausted) return false;
+
+        // keep the marked token, it may continue past the end of the window.
+        int keep = (int)(mark - windowStart);
+        System.arraycopy(window, keep, window, 0, count - keep);
+        count -= keep;
+        windowStart = mark;
+
+        // a character outside the BMP decodes to a surrogate pair, which
+        // the decoder will not split, so there has to be room for two.
+        if(window.length - count < 2){
+            char[] larger = new char[window.length * 2];
+            System.arraycopy(window, 0, larger, 0, count);
+            window = larger;
+        }
+
+        int before = count;
+        CharBuffer out = CharBuffer.wrap(window, count, window.length - count);
+
+        while(out.position() == before && !exhausted){
+            if(region == null || !region.hasRemaining()){
+                if(!mapNextRegion()){
+                    decoder.decode(ByteBuffer.allocate(0), out, true);
+                    decoder.flush(out);
+                    exhausted = true;
+                    close();
+                    break;
+                }
+            }
+
+            boolean last = regionStart + region.limit() == size;
+            CoderResult result = decoder.decode(region, out, last);
+
+            // a multi byte character cut by the end of the region is picked up
+            // again at the start of the next one.
+            if(result.isUnderflow() && region.hasRemaining() && !last){
+                long next = regionStart + region.position();
+                region = null;
+                regionStart = next;
+            }
+        }
+
+        count = out.position();
+        return count > before;
+    }
+
+    private boolean mapNextRegion(){
+        long next = region == null ? regionStart : regionStart + region.limit();
+        if(next >= size) return false;
+
+        try{
+            region = channel.map(FileChannel.MapMode.READ_ONLY, next,
+                    Math.min(REGION_SIZE, size - next));
+        }catch (IOException error){
+            throw new UncheckedIOException(error);
+        }
+        regionStart = next;
+        return true;
+    }
+
+    @Override
+    public void close(){
+        if(channel == null) return;
+
+        try{
+            channel.close();
+        }catch (IOException ignored){
+            // the mapped regions stay valid after the channel is closed.
+        }
+    }
+}
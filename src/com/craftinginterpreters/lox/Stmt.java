@@ -10,6 +10,7 @@ abstract class Stmt {
 		R visitFuncStmt(Func stmt);
 		R visitIfStmt(If stmt);
 		R visitWhileStmt(While stmt);
+		R visitParallelForStmt(ParallelFor stmt);
 		R visitPrintStmt(Print stmt);
 		R visitVarStmt(Var stmt);
 		R visitReturnStmt(Return stmt);
@@ -92,7 +93,8 @@ abstract class Stmt {
 	}
 
 	static class While extends Stmt {
-		While(Expr condition, Stmt WhileStatement) {
+		While(Token keyword, Expr condition, Stmt WhileStatement) {
+			this.keyword = keyword;
 			this.condition = condition;
 			this.WhileStatement = WhileStatement;
 		}
@@ -102,10 +104,32 @@ abstract class Stmt {
 			return visitor.visitWhileStmt(this);
 		}
 
-		final Expr condition;
+		final Token keyword;
+		final  Expr condition;
 		final  Stmt WhileStatement;
 	}
 
+	static class ParallelFor extends Stmt {
+		ParallelFor(Token keyword, Token variable, Expr start, Expr end, Stmt body) {
+			this.keyword = keyword;
+			this.variable = variable;
+			this.start = start;
+			this.end = end;
+			this.body = body;
+		}
+
+		@Override
+		<R> R accept(Visitor<R> visitor) {
+			return visitor.visitParallelForStmt(this);
+		}
+
+		final Token keyword;
+		final  Token variable;
+		final  Expr start;
+		final  Expr end;
+		final  Stmt body;
+	}
+
 	static class Print extends Stmt {
 		Print(Expr expression) {
 			this.expression = expression;
@@ -0,0 +1,99 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// an open addressing map from symbol ids to values. symbols are small dense
+// ints so they are spread with a multiplicative hash and probed linearly.
+// entries are never removed, nothing in the interpreter undefines a name.
+class SymbolMap<V> {
+
+    // outside the range of ids, Symbols hands out ids from 0 and tokens that
+    // are not names carry -1, so no key can ever match an empty slot.
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private Object[] values;
+    private int size = 0;
+    private int mask;
+
+    SymbolMap(){
+        this(8);
+    }
+
+    SymbolMap(int capacity){
+        int tableSize = Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1);
+        keys = new int[tableSize];
+        values = new Object[tableSize];
+        mask = tableSize - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    boolean containsKey(int key){
+        return keys[slot(key)] == key;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key){
+        int slot = slot(key);
+        return keys[slot] == key ? (V)values[slot] : null;
+    }
+
+    void put(int key, V value){
+        assert key >= 0 : "not a symbol: " + key;
+        int slot = slot(key);
+
+        if(keys[slot] != key){
+            if((size + 1) * 4 > keys.length * 3){
+                grow();
+                slot = slot(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    int size(){
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEachValue(Consumer<? super V> action){
+        for(int i = 0; i < keys.length; i++){
+            if(keys[i] != EMPTY) action.accept((V)values[i]);
+        }
+    }
+
+    // the slot holding key, or the empty slot where it would go.
+    private int slot(int key){
+        int slot = hash(key) & mask;
+        while(keys[slot] != key && keys[slot] != EMPTY){
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(int key){
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private void grow(){
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+
+        for(int i = 0; i < oldKeys.length; i++){
+            if(oldKeys[i] != EMPTY){
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.craftinginterpreters.lox;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// the global symbol table. the scanner interns every identifier to a small
+// dense integer, and scopes, fields and methods are looked up by that id so a
+// name is only hashed as a string once, when it is scanned.
+//
+// entries are never removed. the table is shared, not per interpreter,
+// because the ids are baked into tokens and the native method tables, and
+// one parsed program is run by many interpreters. it holds one entry per
+// distinct identifier name scanned since start up, the values a script
+// computes never reach it, so rescanning a file or running the same
+// scripts again adds nothing. only a long lived process that keeps
+// scanning source with new names, a repl or a server taking scripts from
+// its users, keeps growing it, by a string and a map entry per new name.
+final class Symbols {
+
+    private static final Map<String, Integer> ids = new HashMap<>();
+    private static String[] names = new String[64];
+    private static int count = 0;
+
+    // names the interpreter itself refers to.
+    static final int THIS = intern("this");
+    static final int SUPER = intern("super");
+    static final int INIT = intern("init");
+
+    private Symbols(){}
+
+    static synchronized int intern(String name){
+        Integer id = ids.get(name);
+        if(id != null) return id;
+
+        if(count == names.length){
+            names = Arrays.copyOf(names, count * 2);
+        }
+        names[count] = name;
+        ids.put(name, count);
+        return count++;
+    }
+
+    static synchronized String name(int symbol){
+        return names[symbol];
+    }
+}
@@ -4,13 +4,19 @@ class Token {
     final TokenType type; 
     final String lexeme; 
     final Object literal; 
-    final int line; 
+    int line; // moved by the incremental front end when a cached declaration shifts. 
+    final int symbol; // interned id of the name, -1 for tokens that are not names. 
 
     Token(TokenType type, String lexeme, Object literal, int line){
+        this(type, lexeme, literal, line, -1); 
+    }
+
+    Token(TokenType type, String lexeme, Object literal, int line, int symbol){
         this.type = type; 
         this.lexeme = lexeme; 
         this.literal = literal; 
         this.line = line; 
+        this.symbol = symbol; 
     }
 
     public String toString(){
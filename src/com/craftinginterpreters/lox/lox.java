@@ -3,34 +3,201 @@ package com.craftinginterpreters.lox;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class lox {
 
-    private static final Interpreter interpreter = new Interpreter(); 
+    private static Interpreter interpreter; 
+    private static boolean flat = false; 
+    private static boolean counters = false; 
+
+    private static boolean watch = false; 
+
+    private static Path outputPath = null; 
+    private static boolean lineBuffered = false; 
+
+    private static boolean bench = false; 
+    private static int warmup = BenchRunner.DEFAULT_WARMUP; 
+    private static int iterations = BenchRunner.DEFAULT_ITERATIONS; 
+    private static Path jsonPath = null; 
+
+    private static long maxSteps = Long.MAX_VALUE; 
+    private static int maxDepth = Integer.MAX_VALUE; 
+    private static long maxInstances = Long.MAX_VALUE; 
+    private static long timeout = Long.MAX_VALUE; 
+    private static Limits limits = null; 
 
     static boolean hadError= false;
     public static void main(String[] args) throws IOException {
+
+        int first = 0; 
+        for (; first < args.length && args[first].startsWith("--"); first++){
+            switch (args[first]){
+                // run programs from the flat encoding of their AST. 
+                case "--flat": flat = true; break; 
+                // re-run the script whenever it changes on disk. 
+                case "--watch": watch = true; break; 
+                // print to a file instead of standard output. 
+                case "--out": 
+                    if (++first == args.length) usage(); 
+                    outputPath = Paths.get(args[first]); 
+                    break; 
+                // write output line by line rather than when the buffer fills. 
+                case "--line-buffered": lineBuffered = true; break; 
+                // sample the Lox call stacks, written to the file as collapsed stacks at exit. 
+                case "--profile": 
+                    if (++first == args.length) usage(); 
+                    Profiler.start(Paths.get(args[first])); 
+                    break; 
+                // count what every line and call costs, reported on standard error at exit. 
+                case "--counters": counters = true; break; 
+                // count environments, instances, strings and numbers made, reported on standard error at exit. 
+                case "--stats": Metrics.start().reportAtExit(System.err); break; 
+                // time each script over many runs in this JVM instead of running it once. 
+                case "--bench": bench = true; break; 
+                case "--warmup": 
+                    if (++first == args.length) usage(); 
+                    warmup = count(args[first], 0); 
+                    break; 
+                case "--iterations": 
+                    if (++first == args.length) usage(); 
+                    iterations = count(args[first], 1); 
+                    break; 
+                // write the --bench results to the file as JSON as well. 
+                case "--json": 
+                    if (++first == args.length) usage(); 
+                    jsonPath = Paths.get(args[first]); 
+                    break; 
+                // stop a run that goes over any of these with a runtime error. 
+                case "--max-steps": 
+                    if (++first == args.length) usage(); 
+                    maxSteps = count(args[first], 1); 
+                    break; 
+                case "--max-depth": 
+                    if (++first == args.length) usage(); 
+                    maxDepth = count(args[first], 1); 
+                    break; 
+                case "--max-instances": 
+                    if (++first == args.length) usage(); 
+                    maxInstances = count(args[first], 0); 
+                    break; 
+                case "--timeout": 
+                    if (++first == args.length) usage(); 
+                    timeout = TimeUnit.MILLISECONDS.toNanos(count(args[first], 1)); 
+                    break; 
+                default: usage(); 
+            }
+        }
+
+        // the counters are kept by a tree walker of their own, they can not 
+        // count the flat interpreter or be timed by --bench. 
+        if (counters && (flat || bench)) usage(); 
+
+        if (maxSteps != Long.MAX_VALUE || maxDepth != Integer.MAX_VALUE 
+                || maxInstances != Long.MAX_VALUE || timeout != Long.MAX_VALUE){
+            limits = new Limits(maxSteps, maxDepth, maxInstances, timeout); 
+        }
+
+        if (bench){
+            if (args.length == first) usage(); 
+            List<String> scripts = Arrays.asList(args).subList(first, args.length); 
+            boolean measured = BenchRunner.runAll(scripts, warmup, iterations, flat, limits, jsonPath); 
+            System.exit(measured ? 0 : 65); 
+        }
+
+        if (flat) interpreter = new FlatInterpreter(); 
+        else if (counters) interpreter = new CountingInterpreter().reportAtExit(System.err); 
+        else interpreter = new Interpreter(); 
+
+        if (outputPath != null){
+            interpreter.output = Output.file(outputPath); 
+        }
+        // the prompt is interactive, its output has to show up as it is printed. 
+        if (lineBuffered || (!watch && args.length == first)){
+            interpreter.output.setLineBuffered(true); 
+        }
         
-        if (args.length > 1){
-            System.out.println("usage: jlox [script]");
-            System.exit(64);
+        if (args.length - first > 1){
+            usage(); 
         }else{
-            if (args.length == 1){
-                runFile(args[0]); 
+            if (args.length - first == 1){
+                if (watch) watchFile(args[first]); 
+                else runFile(args[first]); 
+            }else if (watch){
+                usage(); 
             }else{
                 runPrompt(); 
             }
         }
     }
 
+    private static void usage(){
+        System.out.println("usage: jlox [--flat | --counters] [--watch] [--out file] [--line-buffered] [--profile file] [--stats]");
+        System.out.println("            [--max-steps n] [--max-depth n] [--max-instances n] [--timeout ms] [script]");
+        System.out.println("       jlox --bench [--flat] [--warmup n] [--iterations n] [--json file]");
+        System.out.println("            [--max-steps n] [--max-depth n] [--max-instances n] [--timeout ms] script...");
+        System.exit(64);
+    }
+
+    private static int count(String text, int least){
+        try {
+            int count = Integer.parseInt(text); 
+            if (count >= least) return count; 
+        } catch (NumberFormatException e) {
+        }
+        usage(); 
+        return least; 
+    }
+
     private static void runFile(String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path)); 
-        run(new String(bytes, Charset.defaultCharset()));  
+        // the file is mapped and decoded as the scanner goes rather than read in whole. 
+        try (Source source = Source.open(Paths.get(path))){
+            run(source);  
+        }
+        interpreter.output.flush(); 
         if (hadError) System.exit(65);
+        if (interpreter.output.checkError()) System.exit(74);
+    }
+
+    private static void watchFile(String path) throws IOException {
+        Path file = Paths.get(path); 
+        IncrementalFrontEnd frontEnd = new IncrementalFrontEnd(); 
+        FileTime seen = null; 
+
+        for (;;){
+            FileTime modified = Files.getLastModifiedTime(file); 
+
+            if (!modified.equals(seen)){
+                seen = modified; 
+                String source = Files.readString(file, StandardCharsets.UTF_8); 
+
+                long start = System.nanoTime(); 
+                List<Stmt> statements = frontEnd.update(source); 
+                long elapsed = System.nanoTime() - start; 
+
+                System.err.printf("[watch] %s: %d of %d declarations parsed in %.1f ms%n", 
+                        path, frontEnd.reparsed, frontEnd.declarations, elapsed / 1e6); 
+
+                if (!hadError){
+                    if (limits != null) interpreter.limit(limits); 
+                    interpreter.interpret(statements); 
+                }
+                hadError = false; 
+            }
+
+            try {
+                Thread.sleep(200); 
+            } catch (InterruptedException e) {
+                return; 
+            }
+        }
     }
 
     private static void runPrompt() throws IOException{
@@ -41,12 +208,12 @@ public class lox {
             System.out.print(">"); 
             String line = reader.readLine(); 
             if (line == null) break; 
-            run(line); 
+            run(new Source(line)); 
             hadError = false; 
         }
     }
 
-    private static void run(String source){
+    private static void run(Source source){
         // this is a custom implementation of the scanner, not the default utils.Scanner
         Scanner scanner = new Scanner(source); 
 
@@ -57,11 +224,13 @@ public class lox {
 
         if(hadError) return;
 
-        Resolver resolver = new Resolver(interpreter);
+        Resolver resolver = new Resolver();
         resolver.resolve(statements);
 
         if(hadError) return;
 
+        // every run gets the whole of its limits. 
+        if (limits != null) interpreter.limit(limits); 
         interpreter.interpret(statements);
     }
 
@@ -13,7 +13,9 @@ public class GenerateAst {
             System.exit(64);
         }
         String outputDir = args[0];
-        defineAst(outputDir, "Expr", Arrays.asList(
+        // the resolver stores the scope distance of a variable reference on the
+        // node itself, so it lives and dies with the code it belongs to.
+        defineAst(outputDir, "Expr", "int depth = -1", Arrays.asList(
             "Binary: Expr left, Token operator, Expr right", 
             "Assignment: Token name, Expr value",
             "logical: Expr left, Token operator, Expr right",
@@ -28,13 +30,14 @@ public class GenerateAst {
             "Var: Token name"
         ));
 
-        defineAst(outputDir, "Stmt", Arrays.asList(
+        defineAst(outputDir, "Stmt", null, Arrays.asList(
             "Block: List<Stmt> statements",
             "Expression: Expr expression",
             "Class: Token name, Expr.Var superClass, List<Stmt.Func> methods",
             "Func: Token name, List<Token> arguments, List<Stmt> body",
             "If: Expr condition, Stmt ThenStatement, Stmt ElseStatement",
-            "While: Expr condition, Stmt WhileStatement",
+            "While: Token keyword, Expr condition, Stmt WhileStatement",
+            "ParallelFor: Token keyword, Token variable, Expr start, Expr end, Stmt body",
             "Print: Expr expression",
             "Var: Token name, Expr Initializer",
             "Return: Token keyword, Expr value"
@@ -42,7 +45,7 @@ public class GenerateAst {
     }
 
     // defines the abstract AST class. 
-    private static void defineAst(String outputDir, String baseName, List<String> types) throws IOException{
+    private static void defineAst(String outputDir, String baseName, String baseField, List<String> types) throws IOException{
         String path = outputDir + "/" + baseName + ".java"; 
 
         PrintWriter writer = new PrintWriter(path, "UTF-8"); 
@@ -52,6 +55,11 @@ public class GenerateAst {
         writer.println();
         writer.println("abstract class " + baseName + " {");
 
+        if(baseField != null){
+            writer.println("\t" + baseField + ";");
+            writer.println();
+        }
+
         defineVisitor(writer, baseName, types); 
 
         for (String type: types){